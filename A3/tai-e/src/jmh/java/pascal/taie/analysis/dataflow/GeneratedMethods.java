@@ -0,0 +1,118 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.DefaultIR;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Binary;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates synthetic methods for benchmarks, so that the benchmarks
+ * do not need to build the world from class files.
+ */
+public final class GeneratedMethods {
+
+    private GeneratedMethods() {
+    }
+
+    /**
+     * Generates a method consisting of given number of blocks over
+     * given number of int variables. Each block is a small loop:
+     * <pre>
+     * L: a = b;
+     *    t = a + i;
+     *    if (t > n) goto M;
+     *    i = t;
+     * M: if (i < a) goto L;
+     * </pre>
+     * where {@code b} is the number of the block, {@code n} is
+     * the parameter, and {@code a}, {@code t} are picked from
+     * the variables in a round-robin way, so that the facts of
+     * the analyses grow with the number of variables.
+     *
+     * @return the IR of the generated method.
+     */
+    public static IR generateIR(int blocks, int vars) {
+        List<Var> varList = new ArrayList<>(vars + 2);
+        Var n = newVar(varList, "n");
+        Var i = newVar(varList, "i");
+        for (int v = 0; v < vars; ++v) {
+            newVar(varList, "v" + v);
+        }
+        List<Stmt> stmts = new ArrayList<>(blocks * 5 + 2);
+        stmts.add(new AssignLiteral(i, IntLiteral.get(0)));
+        for (int b = 0; b < blocks; ++b) {
+            Var a = varList.get(2 + b % vars);
+            Var t = varList.get(2 + (b + 1) % vars);
+            Stmt head = new AssignLiteral(a, IntLiteral.get(b));
+            stmts.add(head);
+            stmts.add(new Binary(t, new ArithmeticExp(ArithmeticExp.Op.ADD, a, i)));
+            If skip = new If(new ConditionExp(ConditionExp.Op.GT, t, n));
+            stmts.add(skip);
+            stmts.add(new Copy(i, t));
+            If loop = new If(new ConditionExp(ConditionExp.Op.LT, i, a));
+            stmts.add(loop);
+            skip.setTarget(loop);
+            loop.setTarget(head);
+        }
+        stmts.add(new Return(i));
+        for (int s = 0; s < stmts.size(); ++s) {
+            stmts.get(s).setIndex(s);
+            stmts.get(s).setLineNumber(s);
+        }
+        return new DefaultIR(null, null, List.of(n), Set.of(i),
+                varList, stmts, List.of());
+    }
+
+    private static Var newVar(List<Var> varList, String name) {
+        Var var = new Var(null, name, PrimitiveType.INT, varList.size());
+        varList.add(var);
+        return var;
+    }
+
+    /**
+     * @return the CFG of given IR, without exceptional edges.
+     */
+    public static CFG<Stmt> buildCFG(IR ir) {
+        CFGBuilder builder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", "none", "dump", false));
+        return builder.analyze(ir);
+    }
+}
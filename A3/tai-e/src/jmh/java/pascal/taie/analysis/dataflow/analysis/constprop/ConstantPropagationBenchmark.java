@@ -0,0 +1,97 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.ir.exp.ArithmeticExp;
+import pascal.taie.ir.exp.ConditionExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the operations of constant propagation
+ * that are executed on every transfer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConstantPropagationBenchmark {
+
+    /**
+     * Number of variables in the method.
+     */
+    @Param({"16", "256", "4096"})
+    int vars;
+
+    private CPFact source;
+
+    private CPFact target;
+
+    private Exp arithmeticExp;
+
+    private Exp conditionExp;
+
+    @Setup
+    public void setUp() {
+        Var[] varArray = new Var[vars];
+        source = new CPFact(vars);
+        target = new CPFact(vars);
+        for (int i = 0; i < vars; ++i) {
+            varArray[i] = new Var(null, "v" + i, PrimitiveType.INT, i);
+            // every third variable is NAC, the others are constants
+            source.update(varArray[i], i % 3 == 0 ?
+                    Value.getNAC() : Value.makeConstant(i));
+        }
+        arithmeticExp = new ArithmeticExp(ArithmeticExp.Op.MUL,
+                varArray[1], varArray[vars - 1]);
+        conditionExp = new ConditionExp(ConditionExp.Op.LT,
+                varArray[1], varArray[2]);
+    }
+
+    @Benchmark
+    public CPFact copyFrom() {
+        target.clear();
+        target.copyFrom(source);
+        return target;
+    }
+
+    @Benchmark
+    public Value evaluateArithmetic() {
+        return ConstantPropagation.evaluate(arithmeticExp, source);
+    }
+
+    @Benchmark
+    public Value evaluateCondition() {
+        return ConstantPropagation.evaluate(conditionExp, source);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.type.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of union and copy of set facts, for {@link SetFact} and
+ * the bit-vector {@link IndexedSetFact} over the same variables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SetFactBenchmark {
+
+    /**
+     * Number of variables in the method.
+     */
+    @Param({"16", "256", "4096"})
+    int vars;
+
+    private SetFact<Var> set1;
+
+    private SetFact<Var> set2;
+
+    private IndexedSetFact<Var> indexedSet1;
+
+    private IndexedSetFact<Var> indexedSet2;
+
+    @Setup
+    public void setUp() {
+        List<Var> universe = new ArrayList<>(vars);
+        for (int i = 0; i < vars; ++i) {
+            universe.add(new Var(null, "v" + i, PrimitiveType.INT, i));
+        }
+        set1 = new SetFact<>();
+        set2 = new SetFact<>();
+        indexedSet1 = new IndexedSetFact<>(universe);
+        indexedSet2 = new IndexedSetFact<>(universe);
+        // the two sets overlap by half of their elements
+        for (int i = 0; i < vars; ++i) {
+            if (i % 2 == 0) {
+                set1.add(universe.get(i));
+                indexedSet1.add(universe.get(i));
+            }
+            if (i % 4 != 3) {
+                set2.add(universe.get(i));
+                indexedSet2.add(universe.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public SetFact<Var> setFactUnion() {
+        SetFact<Var> result = set1.copy();
+        result.union(set2);
+        return result;
+    }
+
+    @Benchmark
+    public SetFact<Var> setFactCopy() {
+        return set2.copy();
+    }
+
+    @Benchmark
+    public IndexedSetFact<Var> indexedSetFactUnion() {
+        IndexedSetFact<Var> result = indexedSet1.copy();
+        result.union(indexedSet2);
+        return result;
+    }
+
+    @Benchmark
+    public IndexedSetFact<Var> indexedSetFactCopy() {
+        return indexedSet2.copy();
+    }
+}
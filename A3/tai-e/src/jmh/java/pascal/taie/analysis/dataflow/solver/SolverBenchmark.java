@@ -0,0 +1,92 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.analysis.dataflow.GeneratedMethods;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.LiveVariableAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.AbstractDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of solving a whole generated method,
+ * see {@link GeneratedMethods#generateIR(int, int)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SolverBenchmark {
+
+    @Param({ConstantPropagation.ID, LiveVariableAnalysis.ID})
+    String analysis;
+
+    @Param({"worklist", "rpo"})
+    String solverKind;
+
+    /**
+     * Number of blocks (small loops) in the method.
+     */
+    @Param({"1000", "10000"})
+    int blocks;
+
+    /**
+     * Number of variables in the method.
+     */
+    @Param({"64"})
+    int vars;
+
+    private Solver<Stmt, ?> solver;
+
+    private CFG<Stmt> cfg;
+
+    @Setup
+    public void setUp() {
+        DataflowAnalysis<Stmt, ?> dataflowAnalysis = switch (analysis) {
+            case ConstantPropagation.ID -> new ConstantPropagation(
+                    new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+            case LiveVariableAnalysis.ID -> new LiveVariableAnalysis(
+                    new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+            default -> throw new IllegalArgumentException(analysis);
+        };
+        solver = Solver.makeSolver(dataflowAnalysis, solverKind);
+        cfg = GeneratedMethods.buildCFG(GeneratedMethods.generateIR(blocks, vars));
+    }
+
+    @Benchmark
+    public AbstractDataflowResult<Stmt, ?> solve() {
+        return solver.solve(cfg);
+    }
+}
@@ -25,7 +25,9 @@ package pascal.taie.analysis;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.Configs;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
@@ -36,6 +38,7 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Pair;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -97,6 +100,9 @@ public class ResultProcessor extends ProgramAnalysis {
                 .collect(Collectors.groupingBy(id -> World.get().getResult(id) != null));
         if (groups.containsKey(false)) {
             processIntraResults(groups.get(false));
+            if (action.equals("dump")) {
+                dumpSolverMetrics(groups.get(false));
+            }
         }
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
@@ -153,15 +159,52 @@ public class ResultProcessor extends ProgramAnalysis {
     }
 
     private void processIntraResults(List<String> analyses) {
-        Stream<JMethod> methods = World.get()
+        processResults(getAppMethods(), analyses, (m, id) -> m.getIR().getResult(id));
+    }
+
+    private static Stream<JMethod> getAppMethods() {
+        return World.get()
                 .getClassHierarchy()
                 .applicationClasses()
                 .map(JClass::getDeclaredMethods)
                 .flatMap(Collection::stream)
                 .filter(m -> !m.isAbstract() && !m.isNative())
-                .sorted(Comparator.comparing(m ->
-                        m.getIR().getStmt(0).getLineNumber()));
-        processResults(methods, analyses, (m, id) -> m.getIR().getResult(id));
+                // method analyses run in parallel, so sort the methods by
+                // line number and then signature to keep dumps deterministic
+                .sorted(Comparator.comparing((JMethod m) ->
+                                m.getIR().getStmt(0).getLineNumber())
+                        .thenComparing(JMethod::toString));
+    }
+
+    /**
+     * Dumps the solver metrics of given analyses (if any) as a JSON array
+     * to the file next to the output file, or to the output directory
+     * if the results are dumped to the console.
+     */
+    private void dumpSolverMetrics(List<String> analyses) {
+        List<String> records = getAppMethods()
+                .flatMap(m -> analyses.stream()
+                        .map(id -> {
+                            SolverMetrics metrics = m.getIR().getResult(
+                                    SolverMetrics.getResultKey(id));
+                            return metrics != null ? metrics.toJson(id) : null;
+                        }))
+                .filter(Objects::nonNull)
+                .toList();
+        if (records.isEmpty()) {
+            return;
+        }
+        String output = getOptions().getString("file");
+        Path path = output != null ?
+                Path.of(output + ".metrics.json") :
+                new File(Configs.getOutputDir(), "solver-metrics.json").toPath();
+        logger.info("Dumping solver metrics to {}", path);
+        try {
+            Files.writeString(path, records.stream()
+                    .collect(Collectors.joining(",\n  ", "[\n  ", "\n]\n")));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write solver metrics", e);
+        }
     }
 
     private void processResults(Stream<JMethod> methods, List<String> analyses,
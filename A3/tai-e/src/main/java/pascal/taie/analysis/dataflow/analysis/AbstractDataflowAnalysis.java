@@ -23,29 +23,54 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import pascal.taie.analysis.MethodAnalysis;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 
+import javax.annotation.Nullable;
+
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * Results of previous runs, or null if option "incremental" is off.
+     */
+    @Nullable
+    private final IncrementalResults<Node, Fact> incrementalResults;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        // option "solver" selects the solver kind, see Solver.makeSolver()
+        solver = Solver.makeSolver(this, getOptions().getString("solver"));
+        incrementalResults = getOptions().getBooleanOrDefault("incremental", false) ?
+                IncrementalResults.get(this) : null;
+        if (getOptions().getBooleanOrDefault("metrics", false)) {
+            // store metrics of each method in its IR for ResultProcessor
+            String key = SolverMetrics.getResultKey(getId());
+            solver.setMetricsConsumer(metrics ->
+                    metrics.getMethod().getIR().storeResult(key, metrics));
+        }
     }
 
+    /**
+     * Method analyses are executed on the methods in parallel, thus
+     * this method may be called by multiple threads at the same time.
+     * The solver and the analysis must not keep any per-method state
+     * in their fields; each call works on its own CFG and result.
+     */
     @Override
-    public DataflowResult<Node, Fact> analyze(IR ir) {
+    public NodeResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        return incrementalResults != null ?
+                incrementalResults.solve(cfg, solver) : solver.solve(cfg);
     }
 
     /**
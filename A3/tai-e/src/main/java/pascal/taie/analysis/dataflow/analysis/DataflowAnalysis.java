@@ -49,6 +49,26 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * Analyses whose facts depend on the analyzed method, e.g., the facts
+     * indexed by the variables of the method, can override this method.
+     * By default, it just calls {@link #newInitialFact()}.
+     *
+     * @return new initial fact for non-boundary nodes of given CFG.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
+    /**
+     * @return the size of given fact, e.g., the number of elements of
+     * a set fact. It is only used by solver metrics, and by default
+     * it returns 0, which means the size is unknown.
+     */
+    default int getFactSize(Fact fact) {
+        return 0;
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
@@ -26,164 +26,226 @@ import pascal.taie.analysis.MethodAnalysis;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
-import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.fact.IndexedSetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.ConfigManager;
+import pascal.taie.config.Configs;
+import pascal.taie.config.PlanConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.AssignStmt;
 import pascal.taie.ir.stmt.If;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.SwitchStmt;
-import pascal.taie.util.collection.Pair;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.Function;
 
+/**
+ * Detects unreachable code and dead assignments.
+ * <p>
+ * By default, the results of constant propagation and live variable
+ * analysis are taken from IR, where they are stored by the two analyses
+ * required by this analysis. With option "fused", this analysis runs the
+ * two analyses itself, so that their results are never stored in IR.
+ * The options of the two analyses are given by the options "constprop"
+ * and "livevar" of this analysis, e.g., {@code livevar:{strongly:false}}.
+ * Fused mode does not merge the two analyses into a single pass: they are
+ * still solved one after another on each method, and only the facts of
+ * one of them are alive at any time.
+ */
 public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Constant propagation run by this analysis in fused mode, otherwise null.
+     */
+    @Nullable
+    private final ConstantPropagation constprop;
+
+    /**
+     * Live variable analysis run by this analysis in fused mode, otherwise null.
+     */
+    @Nullable
+    private final LiveVariableAnalysis livevar;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        if (getOptions().getBooleanOrDefault("fused", false)) {
+            List<AnalysisConfig> configs = resolveConfigs(getOptions());
+            constprop = new ConstantPropagation(
+                    getConfig(configs, ConstantPropagation.ID));
+            livevar = new LiveVariableAnalysis(
+                    getConfig(configs, LiveVariableAnalysis.ID));
+        } else {
+            constprop = null;
+            livevar = null;
+        }
+    }
+
+    /**
+     * @return all analysis configs in the configuration file, where the
+     * options of constant propagation and live variable analysis are
+     * overwritten by the options "constprop" and "livevar" of this analysis.
+     */
+    private static List<AnalysisConfig> resolveConfigs(AnalysisOptions options) {
+        List<AnalysisConfig> configs = AnalysisConfig.parseConfigs(
+                Configs.getAnalysisConfig());
+        new ConfigManager(configs).overwriteOptions(List.of(
+                getPlanConfig(options, ConstantPropagation.ID),
+                getPlanConfig(options, LiveVariableAnalysis.ID)));
+        return configs;
+    }
+
+    /**
+     * @return the plan config of the analysis run in fused mode, with
+     * the options given by the option of this analysis named by its ID.
+     */
+    private static PlanConfig getPlanConfig(AnalysisOptions options, String id) {
+        Object value = options.get(id);
+        if (value != null && !(value instanceof Map)) {
+            throw new ConfigException("Options of \"" + id +
+                    "\" in fused mode should be a map, but given: " + value);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> analysisOptions = value != null ?
+                (Map<String, Object>) value : Map.of();
+        return new PlanConfig(id, new AnalysisOptions(analysisOptions));
+    }
+
+    private static AnalysisConfig getConfig(
+            List<AnalysisConfig> configs, String id) {
+        return configs.stream()
+                .filter(config -> config.getId().equals(id))
+                .findFirst()
+                .orElseThrow(() -> new ConfigException(
+                        "Analysis \"" + id + "\" is not found"));
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (constprop != null) {
+            return analyzeFused(ir, cfg);
+        }
         // obtain result of constant propagation
-        DataflowResult<Stmt, CPFact> constants =
+        NodeResult<Stmt, CPFact> constants =
                 ir.getResult(ConstantPropagation.ID);
         // obtain result of live variable analysis
-        DataflowResult<Stmt, SetFact<Var>> liveVars =
+        NodeResult<Stmt, IndexedSetFact<Var>> liveVars =
                 ir.getResult(LiveVariableAnalysis.ID);
-        // keep statements (dead code) sorted in the resulting set
-        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
-        // TODO - finish me
-        // Your task is to recognize dead code in ir and add it to deadCode
-
-    Set<Stmt> liveCode = new HashSet<>();
-    Queue<Stmt> worklist = new LinkedList<>();
-
-    worklist.add(cfg.getEntry());
-    worklist.add(cfg.getExit());
-    while (!worklist.isEmpty())
-    {
-        Stmt stmt = worklist.poll();
-
-        if (!liveCode.add(stmt))
-        {
-            continue;
-        }
+        Set<Stmt> liveCode = findReachableStmts(cfg, constants::getInFact);
+        return collectDeadCode(cfg, liveCode, liveVars::getOutFact);
+    }
 
-        if (stmt instanceof AssignStmt<?, ?> assignStmt)
-        {
-            LValue lValue = assignStmt.getLValue();
-            RValue rValue = assignStmt.getRValue();
-            SetFact<Var> liveOut = liveVars.getOutFact(stmt);
+    /**
+     * Detects dead code without the results of constant propagation and
+     * live variable analysis stored in IR. The two analyses are solved
+     * one after another in this method, and the result of constant
+     * propagation is dropped before live variable analysis is solved.
+     */
+    private Set<Stmt> analyzeFused(IR ir, CFG<Stmt> cfg) {
+        Set<Stmt> liveCode = findReachableStmts(
+                cfg, constprop.analyze(ir)::getInFact);
+        NodeResult<Stmt, IndexedSetFact<Var>> liveVars = livevar.analyze(ir);
+        return collectDeadCode(cfg, liveCode, liveVars::getOutFact);
+    }
 
-            if (lValue instanceof Var var && !liveOut.contains(var) && hasNoSideEffect(rValue)) {
-                //liveCode.remove(stmt);
-                deadCode.add(stmt);
-            }
+    /**
+     * @return the statements reachable from the entry (and exit) of cfg,
+     * where the branches that can never be taken under the constants
+     * given by {@code inFacts} are not followed.
+     */
+    private static Set<Stmt> findReachableStmts(
+            CFG<Stmt> cfg, Function<Stmt, CPFact> inFacts) {
+        Set<Stmt> liveCode = new HashSet<>();
+        Queue<Stmt> worklist = new LinkedList<>();
 
-            for (Stmt succ : cfg.getSuccsOf(stmt))
-            {
-                if (succ != null)
-                {
-                    worklist.add(succ);
-                }
+        worklist.add(cfg.getEntry());
+        worklist.add(cfg.getExit());
+        while (!worklist.isEmpty()) {
+            Stmt stmt = worklist.poll();
+            if (!liveCode.add(stmt)) {
+                continue;
             }
-
-        }
-        else if (stmt instanceof If ifStmt)
-        {
-            CPFact inFact = constants.getInFact(ifStmt);
-            ConditionExp condVar = ifStmt.getCondition();
-            Value condValue = ConstantPropagation.evaluate(condVar, inFact);
-            if(condValue.isConstant())
-            {
-                for (Edge<Stmt> edge : cfg.getOutEdgesOf(ifStmt))
-                {
-                    if (edge.getKind() == Edge.Kind.IF_TRUE&&condValue.getConstant() != 0)
-                    {
-                        worklist.add(edge.getTarget());
-                    }
-                    else if (edge.getKind() == Edge.Kind.IF_FALSE&&condValue.getConstant() == 0)
-                    {
-                        worklist.add(edge.getTarget());
+            if (stmt instanceof If ifStmt) {
+                CPFact inFact = inFacts.apply(ifStmt);
+                ConditionExp condVar = ifStmt.getCondition();
+                Value condValue = ConstantPropagation.evaluate(condVar, inFact);
+                if (condValue.isConstant()) {
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(ifStmt)) {
+                        if (edge.getKind() == Edge.Kind.IF_TRUE
+                                && condValue.getConstant() != 0) {
+                            worklist.add(edge.getTarget());
+                        } else if (edge.getKind() == Edge.Kind.IF_FALSE
+                                && condValue.getConstant() == 0) {
+                            worklist.add(edge.getTarget());
+                        }
                     }
+                } else {
+                    addSuccsOf(cfg, ifStmt, worklist);
                 }
-            }
-            else
-            {
-                for (Stmt succ : cfg.getSuccsOf(ifStmt))
-                {
-                    if (succ != null)
-                    {
-                        worklist.add(succ);
+            } else if (stmt instanceof SwitchStmt switchStmt) {
+                Var condVar = switchStmt.getVar();
+                CPFact inFact = inFacts.apply(switchStmt);
+                Value switchValue = ConstantPropagation.evaluate(condVar, inFact);
+                if (switchValue.isConstant()) {
+                    for (Edge<Stmt> edge : cfg.getOutEdgesOf(switchStmt)) {
+                        if (edge.getKind() == Edge.Kind.SWITCH_CASE
+                                && switchValue.getConstant() == edge.getCaseValue()) {
+                            worklist.add(edge.getTarget());
+                        } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT
+                                && !switchStmt.getCaseValues().contains(
+                                        switchValue.getConstant())) {
+                            worklist.add(edge.getTarget());
+                        }
                     }
+                } else {
+                    addSuccsOf(cfg, switchStmt, worklist);
                 }
+            } else {
+                addSuccsOf(cfg, stmt, worklist);
             }
-
         }
-        else if (stmt instanceof SwitchStmt switchStmt)
-        {
-
-            Var condVar = switchStmt.getVar();
-            CPFact inFact = constants.getInFact(switchStmt);
-             Value switchValue = ConstantPropagation.evaluate(condVar, inFact);
-            if(switchValue.isConstant())
-            {
-
-                for (Edge<Stmt> edge : cfg.getOutEdgesOf(switchStmt))
-                {
-                     if (edge.getKind() == Edge.Kind.SWITCH_CASE&&switchValue.getConstant()==edge.getCaseValue())
-                    {
-                        worklist.add(edge.getTarget());
-                    }
-                    else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT&&!switchStmt.getCaseValues().contains(switchValue.getConstant()))
-                    {
-                        worklist.add(edge.getTarget());
-                    }
-                }
-
-            }
-            else
-            {
-                for (Stmt succ : cfg.getSuccsOf(switchStmt))
-                {
-                    if (succ != null)
-                    {
-                        worklist.add(succ);
-                    }
-                }
-            }
+        return liveCode;
+    }
 
-        }
-        else
-        {
-            for (Stmt succ : cfg.getSuccsOf(stmt))
-            {
-                if (succ != null)
-                {
-                    worklist.add(succ);
-                }
+    private static void addSuccsOf(
+            CFG<Stmt> cfg, Stmt stmt, Queue<Stmt> worklist) {
+        for (Stmt succ : cfg.getSuccsOf(stmt)) {
+            if (succ != null) {
+                worklist.add(succ);
             }
         }
     }
-    for (Stmt stmt : cfg.getNodes())
-    {
-        if (!liveCode.contains(stmt))
-        {
-            deadCode.add(stmt);
-        }
-    }
 
-    //deadCode.remove(cfg.getExit());
+    /**
+     * @return unreachable statements and dead assignments of cfg.
+     */
+    private static Set<Stmt> collectDeadCode(
+            CFG<Stmt> cfg, Set<Stmt> liveCode,
+            Function<Stmt, IndexedSetFact<Var>> liveOutFacts) {
+        // keep statements (dead code) sorted in the resulting set
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : cfg.getNodes()) {
+            if (!liveCode.contains(stmt)) {
+                deadCode.add(stmt);
+            } else if (stmt instanceof AssignStmt<?, ?> assignStmt
+                    && assignStmt.getLValue() instanceof Var var
+                    && hasNoSideEffect(assignStmt.getRValue())
+                    && !liveOutFacts.apply(stmt).contains(var)) {
+                deadCode.add(stmt);
+            }
+        }
         return deadCode;
     }
 
@@ -0,0 +1,275 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.AbstractDataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps the results of a data-flow analysis on the methods it has analyzed,
+ * together with digests of their IRs, so that when the same methods are
+ * analyzed again (e.g., after the program is modified and reloaded in the
+ * same JVM), only the changed parts of them are re-solved.
+ * <p>
+ * The results are scoped to the {@link World}: when the world is reset,
+ * the results of the finished run are kept for the next run only, and
+ * the older ones are dropped. In each run, at most {@link #MAX_METHODS}
+ * methods are kept, and the least recently solved ones are evicted.
+ * <p>
+ * A method is identified by its signature. Its digest consists of the
+ * names and types of its variables, and the text and the indexes of the
+ * predecessors and successors of each CFG node. If the variables or the
+ * number of nodes differ, the method is solved from scratch; otherwise the
+ * nodes whose digests differ are re-solved by
+ * {@link Solver#solve(CFG, NodeResult, Set)}, and if no node differs,
+ * the previous result is reused directly.
+ * <p>
+ * This requires the facts to be identified by indexes of nodes and
+ * variables, which is the case for all facts in this package, as the
+ * nodes and variables of different versions are different objects.
+ *
+ * @param <Node> type of CFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+class IncrementalResults<Node, Fact> {
+
+    /**
+     * Maximum number of methods whose results are kept in each run.
+     */
+    private static final int MAX_METHODS = 1 << 14;
+
+    /**
+     * Incremental results of all analyses, keyed by analysis ID and options.
+     */
+    private static final Map<String, IncrementalResults<?, ?>> allResults
+            = new ConcurrentHashMap<>();
+
+    static {
+        World.registerResetCallback(IncrementalResults::onWorldReset);
+    }
+
+    /**
+     * ID of the analysis whose results are kept.
+     */
+    private final String analysisId;
+
+    /**
+     * Number of the methods whose previous results are reused
+     * without re-solving in the current run.
+     */
+    private final AtomicInteger nReused = new AtomicInteger();
+
+    /**
+     * Number of the methods which are (partially) re-solved
+     * in the current run.
+     */
+    private final AtomicInteger nSolved = new AtomicInteger();
+
+    /**
+     * Entries of the current run.
+     */
+    private volatile Map<String, Entry<Fact>> entries = newEntries();
+
+    /**
+     * Entries of the previous run.
+     */
+    private volatile Map<String, Entry<Fact>> previousEntries = Map.of();
+
+    private IncrementalResults(String analysisId) {
+        this.analysisId = analysisId;
+    }
+
+    /**
+     * @return the incremental results of given analysis.
+     */
+    @SuppressWarnings("unchecked")
+    static <Node, Fact> IncrementalResults<Node, Fact> get(
+            AbstractDataflowAnalysis<Node, Fact> analysis) {
+        String key = analysis.getId() + analysis.getOptions();
+        return (IncrementalResults<Node, Fact>) allResults.computeIfAbsent(
+                key, unused -> new IncrementalResults<>(analysis.getId()));
+    }
+
+    /**
+     * @return the number of the methods whose previous results are reused
+     * without re-solving by given analysis in the current run.
+     */
+    static int getReusedMethods(String analysisId) {
+        return sum(analysisId, results -> results.nReused.get());
+    }
+
+    /**
+     * @return the number of the methods which are (partially) re-solved
+     * by given analysis in the current run.
+     */
+    static int getSolvedMethods(String analysisId) {
+        return sum(analysisId, results -> results.nSolved.get());
+    }
+
+    private static int sum(String analysisId,
+                           ToIntFunction<IncrementalResults<?, ?>> counter) {
+        return allResults.values()
+                .stream()
+                .filter(results -> results.analysisId.equals(analysisId))
+                .mapToInt(counter)
+                .sum();
+    }
+
+    /**
+     * Moves the entries of the finished run to the previous run, and
+     * drops the results of the analyses which were not run in it.
+     */
+    private static void onWorldReset() {
+        allResults.values().removeIf(results -> !results.startNewRun());
+    }
+
+    /**
+     * Moves the entries of the current run to the previous run.
+     *
+     * @return true if there are any entries of the previous run.
+     */
+    private boolean startNewRun() {
+        previousEntries = entries;
+        entries = newEntries();
+        nReused.set(0);
+        nSolved.set(0);
+        return !previousEntries.isEmpty();
+    }
+
+    private static <Fact> Map<String, Entry<Fact>> newEntries() {
+        return Collections.synchronizedMap(
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(
+                            Map.Entry<String, Entry<Fact>> eldest) {
+                        return size() > MAX_METHODS;
+                    }
+                });
+    }
+
+    /**
+     * Solves given CFG with given solver, reusing the previous result
+     * of the same method if possible.
+     */
+    AbstractDataflowResult<Node, Fact> solve(CFG<Node> cfg, Solver<Node, Fact> solver) {
+        if (!(cfg.getEntry() instanceof Indexable)) {
+            nSolved.incrementAndGet();
+            return solver.solve(cfg);
+        }
+        IR ir = cfg.getIR();
+        Digest digest = new Digest(ir, cfg);
+        String method = ir.getMethod().getSignature();
+        Entry<Fact> previous = entries.get(method);
+        if (previous == null) {
+            previous = previousEntries.get(method);
+        }
+        AbstractDataflowResult<Node, Fact> result;
+        if (previous == null || !previous.digest().vars().equals(digest.vars())
+                || previous.digest().nodes().length != digest.nodes().length) {
+            result = solver.solve(cfg);
+        } else {
+            Set<Node> changed = Sets.newHybridSet();
+            for (Node node : cfg) {
+                int i = ((Indexable) node).getIndex();
+                if (!previous.digest().isSameNode(digest, i)) {
+                    changed.add(node);
+                }
+            }
+            @SuppressWarnings("unchecked")
+            AbstractDataflowResult<Node, Fact> previousResult =
+                    (AbstractDataflowResult<Node, Fact>) previous.result();
+            result = changed.isEmpty() ? previousResult :
+                    solver.solve(cfg, previousResult, changed);
+        }
+        if (previous != null && result == previous.result()) {
+            nReused.incrementAndGet();
+        } else {
+            nSolved.incrementAndGet();
+        }
+        entries.put(method, new Entry<>(digest, result));
+        return result;
+    }
+
+    /**
+     * Digest of the IR of a method.
+     *
+     * @param vars  name and type of each variable
+     * @param nodes text of each CFG node, indexed by node index
+     * @param preds sorted indexes of the predecessors of each node
+     * @param succs sorted indexes of the successors of each node
+     */
+    private record Digest(List<String> vars, String[] nodes,
+                          int[][] preds, int[][] succs) {
+
+        private <Node> Digest(IR ir, CFG<Node> cfg) {
+            this(ir.getVars().stream()
+                            .map(v -> v.getName() + ':' + v.getType())
+                            .toList(),
+                    new String[cfg.getNumberOfNodes()],
+                    new int[cfg.getNumberOfNodes()][],
+                    new int[cfg.getNumberOfNodes()][]);
+            for (Node node : cfg) {
+                int i = ((Indexable) node).getIndex();
+                nodes[i] = node.toString();
+                preds[i] = getIndexes(cfg.getPredsOf(node));
+                succs[i] = getIndexes(cfg.getSuccsOf(node));
+            }
+        }
+
+        private static <Node> int[] getIndexes(Set<Node> nodes) {
+            return nodes.stream()
+                    .mapToInt(n -> ((Indexable) n).getIndex())
+                    .sorted()
+                    .toArray();
+        }
+
+        private boolean isSameNode(Digest other, int i) {
+            return nodes[i].equals(other.nodes[i])
+                    && Arrays.equals(preds[i], other.preds[i])
+                    && Arrays.equals(succs[i], other.succs[i]);
+        }
+    }
+
+    /**
+     * Digest and result of a method.
+     */
+    private record Entry<Fact>(Digest digest,
+                               AbstractDataflowResult<?, Fact> result) {
+    }
+}
@@ -22,21 +22,19 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
-import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.dataflow.fact.IndexedSetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.RValue;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
-import java.util.Optional;
-
 /**
  * Implementation of classic live variable analysis.
+ * The facts are bit vectors indexed by {@link Var#getIndex()}.
  */
 public class LiveVariableAnalysis extends
-        AbstractDataflowAnalysis<Stmt, SetFact<Var>> {
+        AbstractDataflowAnalysis<Stmt, IndexedSetFact<Var>> {
 
     public static final String ID = "livevar";
 
@@ -50,46 +48,51 @@ public class LiveVariableAnalysis extends
     }
 
     @Override
-    public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
+    public IndexedSetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // 也即exit的in是空集
-        return new SetFact<Var>();
+        return new IndexedSetFact<>(cfg.getIR().getVars());
     }
 
+    /**
+     * Creates an empty fact which learns the variables as they are added.
+     * The solvers use {@link #newInitialFact(CFG)}, which sizes the fact
+     * by the variables of the analyzed method up front.
+     */
     @Override
-    public SetFact<Var> newInitialFact() {
+    public IndexedSetFact<Var> newInitialFact() {
+        return new IndexedSetFact<>();
+    }
+
+    @Override
+    public IndexedSetFact<Var> newInitialFact(CFG<Stmt> cfg) {
         // 也即每个block的in是空
-        return new SetFact<Var>();
+        return new IndexedSetFact<>(cfg.getIR().getVars());
     }
 
     @Override
-    public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+    public int getFactSize(IndexedSetFact<Var> fact) {
+        return fact.size();
+    }
+
+    @Override
+    public void meetInto(IndexedSetFact<Var> fact, IndexedSetFact<Var> target) {
         //直接调用fact的接口即可。
         target.union(fact);
     }
 
     @Override
-    public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out)
-    {
-        SetFact<Var> p_in = out.copy();//用来存储中间结果
-        //首先从out中删除def
-        Optional<LValue> def = stmt.getDef();
-        if (def.isPresent()&& def.get() instanceof Var)
-        {
-            p_in.remove((Var)def.get());
-        }
-        //加入use_B
-        SetFact<Var> use_B = new SetFact<>();
-        for (RValue use : stmt.getUses())
-        {
-            if(use instanceof Var)
-                use_B.add((Var) use);
-        }
-        p_in.union(use_B);
-        if(p_in.equals(in))
-        {
-            return false;
+    public boolean transferNode(Stmt stmt, IndexedSetFact<Var> in,
+                                IndexedSetFact<Var> out) {
+        // IN = use_B ∪ (OUT - def_B). Starting from empty sets, IN only
+        // grows during solving, so it can be updated in place by unions,
+        // and any new bit means IN has changed.
+        Var def = stmt.getDef().orElse(null) instanceof Var var ? var : null;
+        boolean changed = in.unionExcept(out, def);
+        for (RValue use : stmt.getUses()) {
+            if (use instanceof Var var) {
+                changed |= in.add(var);
+            }
         }
-        in.set(p_in);
-        return true;
+        return changed;
     }
 }
@@ -22,55 +22,388 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
-import pascal.taie.analysis.dataflow.fact.MapFact;
 import pascal.taie.ir.exp.Var;
 
-import java.util.Collections;
-import java.util.Map;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Represents data facts of constant propagation, which maps variables
  * to their lattice values.
  * <p>
+ * The lattice values are stored in parallel primitive arrays indexed by
+ * {@link Var#getIndex()}: {@link #kinds} keeps the kind of each value,
+ * and {@link #constants} keeps the integer of each constant, thus updating
+ * a fact never allocates {@link Value} objects. As variable indexes are
+ * local to a method, a CPFact should only contain variables of one method.
+ * <p>
  * Note that in this implementation, we use absence to represent UNDEF,
  * i.e., if a CPFact does not contain variable-value mapping of a variable,
  * it represents that the lattice value of the variable is UNDEF;
  * moreover, if we set the lattice value of a variable to UNDEF,
  * it effectively removes the variable from the CPFact.
+ * <p>
+ * Inside this package, a lattice value can also be encoded as a long,
+ * whose high 32 bits are the kind and low 32 bits are the constant,
+ * so that values can be evaluated and passed around without boxing.
  */
-public class CPFact extends MapFact<Var, Value> {
+public class CPFact {
+
+    /**
+     * Kind of UNDEF, which must be 0 so that new array slots are UNDEF.
+     */
+    private static final byte UNDEF = 0;
+
+    private static final byte CONSTANT = 1;
+
+    private static final byte NAC = 2;
+
+    /**
+     * Encoded UNDEF.
+     */
+    static final long UNDEF_VALUE = 0L;
+
+    /**
+     * Encoded NAC.
+     */
+    static final long NAC_VALUE = (long) NAC << 32;
+
+    private static final Var[] EMPTY_VARS = {};
+
+    /**
+     * Variables that are mapped to non-UNDEF values, null for UNDEF.
+     */
+    private Var[] vars;
+
+    private byte[] kinds;
+
+    private int[] constants;
 
     public CPFact() {
-        this(Collections.emptyMap());
+        this(0);
+    }
+
+    /**
+     * Creates an empty fact with space for variables whose indexes are
+     * less than given capacity. The fact grows when necessary.
+     */
+    public CPFact(int capacity) {
+        vars = capacity == 0 ? EMPTY_VARS : new Var[capacity];
+        kinds = new byte[capacity];
+        constants = new int[capacity];
     }
 
-    private CPFact(Map<Var, Value> map) {
-        super(map);
+    private CPFact(CPFact fact) {
+        vars = fact.vars.clone();
+        kinds = fact.kinds.clone();
+        constants = fact.constants.clone();
+    }
+
+    /**
+     * @return encoded constant.
+     */
+    static long encodeConstant(int constant) {
+        return ((long) CONSTANT << 32) | (constant & 0xFFFFFFFFL);
+    }
+
+    static long encode(Value value) {
+        if (value.isConstant()) {
+            return encodeConstant(value.getConstant());
+        } else {
+            return value.isNAC() ? NAC_VALUE : UNDEF_VALUE;
+        }
+    }
+
+    static Value decode(long value) {
+        return switch (kindOf(value)) {
+            case CONSTANT -> Value.makeConstant(constantOf(value));
+            case NAC -> Value.getNAC();
+            default -> Value.getUndef();
+        };
+    }
+
+    /**
+     * Meets two encoded values.
+     */
+    static long meet(long v1, long v2) {
+        if (v1 == UNDEF_VALUE) {
+            return v2;
+        } else if (v2 == UNDEF_VALUE || v1 == v2) {
+            return v1;
+        } else {
+            return NAC_VALUE;
+        }
+    }
+
+    static boolean isConstant(long value) {
+        return kindOf(value) == CONSTANT;
+    }
+
+    static int constantOf(long value) {
+        return (int) value;
+    }
+
+    private static byte kindOf(long value) {
+        return (byte) (value >>> 32);
     }
 
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
      */
-    @Override
     public Value get(Var key) {
-        return map.getOrDefault(key, Value.getUndef());
+        return decode(getEncoded(key));
     }
 
-    @Override
+    /**
+     * @return the encoded value of given variable in this fact.
+     */
+    long getEncoded(Var key) {
+        int i = key.getIndex();
+        return i < kinds.length ?
+                ((long) kinds[i] << 32) | (constants[i] & 0xFFFFFFFFL) :
+                UNDEF_VALUE;
+    }
+
+    /**
+     * Updates the key-value mapping in this fact.
+     *
+     * @return if the update changes this fact.
+     */
     public boolean update(Var key, Value value) {
-        if (value.isUndef()) {
+        return updateEncoded(key, encode(value));
+    }
+
+    /**
+     * Updates the value of given variable to given encoded value.
+     *
+     * @return if the update changes this fact.
+     */
+    boolean updateEncoded(Var key, long value) {
+        int i = key.getIndex();
+        byte kind = kindOf(value);
+        if (kind == UNDEF) {
             // if the client code sets variable key to UNDEF,
             // then we remove the variable from the CPFact
             // as we use absence to represent UNDEF.
-            return remove(key) != null;
-        } else {
-            return super.update(key, value);
+            if (i >= kinds.length || kinds[i] == UNDEF) {
+                return false;
+            }
+            clear(i);
+            return true;
+        }
+        ensureCapacity(i + 1);
+        int constant = constantOf(value);
+        if (kinds[i] == kind && constants[i] == constant) {
+            return false;
         }
+        vars[i] = key;
+        kinds[i] = kind;
+        constants[i] = constant;
+        return true;
     }
 
-    @Override
+    /**
+     * Removes the key-value mapping for given key.
+     *
+     * @return the previous value associated with key,
+     * or null if there was no mapping for key.
+     */
+    public @Nullable Value remove(Var key) {
+        Value value = get(key);
+        if (value.isUndef()) {
+            return null;
+        }
+        clear(key.getIndex());
+        return value;
+    }
+
+    /**
+     * Copies the content from given fact to this fact.
+     * The mappings which are absent in given fact are kept in this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean copyFrom(CPFact fact) {
+        boolean changed = false;
+        for (int i = 0; i < fact.kinds.length; ++i) {
+            if (fact.kinds[i] != UNDEF) {
+                changed |= updateEncoded(fact.vars[i],
+                        fact.getEncoded(fact.vars[i]));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the content of this fact to the same as given fact, except
+     * the value of variable {@code except}, which is left unchanged.
+     *
+     * @param except the variable to be skipped, or null to copy all values.
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean setExcept(CPFact fact, @Nullable Var except) {
+        ensureCapacity(fact.kinds.length);
+        int skip = except != null ? except.getIndex() : -1;
+        boolean changed = false;
+        for (int i = 0; i < kinds.length; ++i) {
+            if (i == skip) {
+                continue;
+            }
+            if (i < fact.kinds.length) {
+                if (kinds[i] != fact.kinds[i]
+                        || constants[i] != fact.constants[i]) {
+                    vars[i] = fact.vars[i];
+                    kinds[i] = fact.kinds[i];
+                    constants[i] = fact.constants[i];
+                    changed = true;
+                }
+            } else if (kinds[i] != UNDEF) {
+                clear(i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Meets given fact into this fact in place.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    boolean meet(CPFact fact) {
+        ensureCapacity(fact.kinds.length);
+        boolean changed = false;
+        for (int i = 0; i < fact.kinds.length; ++i) {
+            byte kind = fact.kinds[i];
+            if (kind == UNDEF || kinds[i] == NAC) {
+                // UNDEF ⊓ v = v, NAC ⊓ v = NAC
+                continue;
+            }
+            if (kinds[i] == UNDEF) {
+                vars[i] = fact.vars[i];
+                kinds[i] = kind;
+                constants[i] = fact.constants[i];
+                changed = true;
+            } else if (kind == NAC || constants[i] != fact.constants[i]) {
+                kinds[i] = NAC;
+                constants[i] = 0;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Creates and returns a copy of this fact.
+     */
     public CPFact copy() {
-        return new CPFact(this.map);
+        return new CPFact(this);
+    }
+
+    /**
+     * Clears all content in this fact.
+     */
+    public void clear() {
+        Arrays.fill(vars, null);
+        Arrays.fill(kinds, UNDEF);
+        Arrays.fill(constants, 0);
+    }
+
+    /**
+     * @return the number of variables which are not UNDEF in this fact.
+     */
+    public int size() {
+        int size = 0;
+        for (byte kind : kinds) {
+            if (kind != UNDEF) {
+                ++size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return a {@link Set} of the variables which are not UNDEF in this fact.
+     */
+    public Set<Var> keySet() {
+        return indexes().mapToObj(i -> vars[i]).collect(Collectors.toSet());
+    }
+
+    /**
+     * Performs the given action for each variable-value mapping in this fact
+     * until all entries have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each entry.
+     */
+    public void forEach(BiConsumer<Var, Value> action) {
+        indexes().forEach(i -> action.accept(vars[i], get(vars[i])));
+    }
+
+    private IntStream indexes() {
+        return IntStream.range(0, kinds.length).filter(i -> kinds[i] != UNDEF);
+    }
+
+    private void clear(int i) {
+        vars[i] = null;
+        kinds[i] = UNDEF;
+        constants[i] = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > kinds.length) {
+            int newCapacity = Math.max(capacity, kinds.length * 2);
+            vars = Arrays.copyOf(vars, newCapacity);
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            constants = Arrays.copyOf(constants, newCapacity);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CPFact that)) {
+            return false;
+        }
+        int length = Math.max(kinds.length, that.kinds.length);
+        for (int i = 0; i < length; ++i) {
+            byte kind = i < kinds.length ? kinds[i] : UNDEF;
+            byte thatKind = i < that.kinds.length ? that.kinds[i] : UNDEF;
+            if (kind != thatKind || (kind == CONSTANT
+                    && constants[i] != that.constants[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < kinds.length; ++i) {
+            if (kinds[i] != UNDEF) {
+                hash += i ^ (kinds[i] * 31 + constants[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        // Sort key-value pairs by key's string representation, so that the
+        // fact representation is stable across executions. This is useful
+        // for comparing expected results and the ones given by the analysis.
+        return "{" + indexes()
+                .mapToObj(i -> vars[i])
+                .sorted(Comparator.comparing(Var::toString))
+                .map(v -> v + "=" + get(v))
+                .collect(Collectors.joining(", ")) + "}";
     }
 }
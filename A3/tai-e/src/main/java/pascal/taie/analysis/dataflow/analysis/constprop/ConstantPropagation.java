@@ -23,7 +23,9 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -42,6 +44,19 @@ public class ConstantPropagation extends
         super(config);
     }
 
+    /**
+     * With option "sparse", the constants are propagated along def-use
+     * chains by {@link SparseConstantPropagation} instead of the solver.
+     */
+    @Override
+    public NodeResult<Stmt, CPFact> analyze(IR ir) {
+        if (getOptions().getBooleanOrDefault("sparse", false)) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return new SparseConstantPropagation(cfg).solve();
+        }
+        return super.analyze(ir);
+    }
+
     @Override
     public boolean isForward() {
         return true;
@@ -66,13 +81,20 @@ public class ConstantPropagation extends
         return new CPFact();
     }
 
+    @Override
+    public CPFact newInitialFact(CFG<Stmt> cfg) {
+        return new CPFact(cfg.getIR().getVars().size());
+    }
+
+    @Override
+    public int getFactSize(CPFact fact) {
+        return fact.size();
+    }
+
     @Override
     public void meetInto(CPFact fact, CPFact target)
     {
-        fact.forEach((var, value) ->
-        {
-            target.update(var, meetValue(value, target.get(var)));
-        });
+        target.meet(fact);
     }
 
     /**
@@ -93,26 +115,16 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        System.err.println("I come to Transfering: ");
-        CPFact updated = new CPFact();
-        updated.copyFrom(in);
-        if(stmt instanceof DefinitionStmt)
-        {
-            LValue lValue = ((DefinitionStmt<?, ?>) stmt).getLValue();
-            RValue rValue = ((DefinitionStmt<?, ?>) stmt).getRValue();
-            if(lValue instanceof Var var)
-            {
-                if(canHoldInt(var))
-                {
-                    if (evaluate(rValue, in) != null)
-                    {
-                        updated.update(var, evaluate(rValue, in));
-                    };
-                }
-            }
+        // OUT = IN[x -> eval(rvalue)] for int variable x defined by stmt,
+        // otherwise OUT = IN. OUT is updated in place.
+        if (stmt instanceof DefinitionStmt<?, ?> defStmt
+                && defStmt.getLValue() instanceof Var var
+                && canHoldInt(var)) {
+            long value = evaluateEncoded(defStmt.getRValue(), in);
+            boolean changed = out.setExcept(in, var);
+            return out.updateEncoded(var, value) | changed;
         }
-        System.err.println("I leave Transfering: ");
-        return  out.copyFrom(updated);
+        return out.setExcept(in, null);
     }
 
     /**
@@ -141,69 +153,67 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        if(exp instanceof IntLiteral intLiteral)
-        {
-            return Value.makeConstant(intLiteral.getValue());
-        }
-        else if(exp instanceof Var var)
-        {
-            return in.get(var);
+        return CPFact.decode(evaluateEncoded(exp, in));
+    }
+
+    /**
+     * Evaluates the value of given expression without creating
+     * {@link Value} objects.
+     *
+     * @return the resulting value, encoded as described in {@link CPFact}.
+     */
+    private static long evaluateEncoded(Exp exp, CPFact in) {
+        if (exp instanceof IntLiteral intLiteral) {
+            return CPFact.encodeConstant(intLiteral.getValue());
+        } else if (exp instanceof Var var) {
+            return in.getEncoded(var);
+        } else if (exp instanceof BinaryExp binaryExp) {
+            return evaluateBinary(binaryExp,
+                    in.getEncoded(binaryExp.getOperand1()),
+                    in.getEncoded(binaryExp.getOperand2()));
+        } else {
+            return CPFact.NAC_VALUE;
         }
-        else if (exp instanceof BinaryExp binaryExp)
-        {
-            Value op1 = evaluate(binaryExp.getOperand1(), in);
-            Value op2 = evaluate(binaryExp.getOperand2(), in);
-            String op = binaryExp.getOperator().toString();
-            if(op2.isConstant()&&op2.getConstant() == 0 &&(op.equals("/")||op.equals("%")))
-            {
-                return Value.getUndef();
-            }
-            if(op1.isUndef()||op2.isUndef())return Value.getUndef();
-            if(op1.isNAC()||op2.isNAC())return Value.getNAC();
+    }
 
-            switch (op)
-            {
-                case "+":
-                    return Value.makeConstant(op1.getConstant() + op2.getConstant());
-                case "-":
-                    return Value.makeConstant(op1.getConstant() - op2.getConstant());
-                case "*":
-                    return Value.makeConstant(op1.getConstant() * op2.getConstant());
-                case "/":
-                    return Value.makeConstant(op1.getConstant() / op2.getConstant());
-                case "%":
-                    return Value.makeConstant(op1.getConstant() % op2.getConstant());
-                case "<":
-                    return Value.makeConstant(op1.getConstant() < op2.getConstant() ? 1 : 0);
-                case "<=":
-                    return Value.makeConstant(op1.getConstant() <= op2.getConstant() ? 1 : 0);
-                case ">":
-                    return Value.makeConstant(op1.getConstant() > op2.getConstant() ? 1 : 0);
-                case ">=":
-                    return Value.makeConstant(op1.getConstant() >= op2.getConstant() ? 1 : 0);
-                case "==":
-                    return Value.makeConstant(op1.getConstant() == op2.getConstant() ? 1 : 0);
-                case "!=":
-                    return Value.makeConstant(op1.getConstant() != op2.getConstant() ? 1 : 0);
-                case "<<":
-                    return Value.makeConstant(op1.getConstant() << op2.getConstant());
-                case ">>":
-                    return Value.makeConstant(op1.getConstant() >> op2.getConstant());
-                case ">>>":
-                    return Value.makeConstant(op1.getConstant() >>> op2.getConstant());
-                case "|":
-                    return Value.makeConstant(op1.getConstant() | op2.getConstant());
-                case "&":
-                    return Value.makeConstant(op1.getConstant() & op2.getConstant());
-                case "^":
-                    return Value.makeConstant(op1.getConstant() ^ op2.getConstant());
-                default:
-                    return Value.getUndef();
-            }
+    /**
+     * Evaluates given binary expression on the encoded values of its operands.
+     *
+     * @return the resulting value, encoded as described in {@link CPFact}.
+     */
+    static long evaluateBinary(BinaryExp binaryExp, long v1, long v2) {
+        String op = binaryExp.getOperator().toString();
+        if (CPFact.isConstant(v2) && CPFact.constantOf(v2) == 0
+                && (op.equals("/") || op.equals("%"))) {
+            return CPFact.UNDEF_VALUE;
         }
-        else
-        {
-            return Value.getNAC();
+        if (v1 == CPFact.UNDEF_VALUE || v2 == CPFact.UNDEF_VALUE) {
+            return CPFact.UNDEF_VALUE;
+        }
+        if (v1 == CPFact.NAC_VALUE || v2 == CPFact.NAC_VALUE) {
+            return CPFact.NAC_VALUE;
         }
+        int c1 = CPFact.constantOf(v1);
+        int c2 = CPFact.constantOf(v2);
+        return switch (op) {
+            case "+" -> CPFact.encodeConstant(c1 + c2);
+            case "-" -> CPFact.encodeConstant(c1 - c2);
+            case "*" -> CPFact.encodeConstant(c1 * c2);
+            case "/" -> CPFact.encodeConstant(c1 / c2);
+            case "%" -> CPFact.encodeConstant(c1 % c2);
+            case "<" -> CPFact.encodeConstant(c1 < c2 ? 1 : 0);
+            case "<=" -> CPFact.encodeConstant(c1 <= c2 ? 1 : 0);
+            case ">" -> CPFact.encodeConstant(c1 > c2 ? 1 : 0);
+            case ">=" -> CPFact.encodeConstant(c1 >= c2 ? 1 : 0);
+            case "==" -> CPFact.encodeConstant(c1 == c2 ? 1 : 0);
+            case "!=" -> CPFact.encodeConstant(c1 != c2 ? 1 : 0);
+            case "<<" -> CPFact.encodeConstant(c1 << c2);
+            case ">>" -> CPFact.encodeConstant(c1 >> c2);
+            case ">>>" -> CPFact.encodeConstant(c1 >>> c2);
+            case "|" -> CPFact.encodeConstant(c1 | c2);
+            case "&" -> CPFact.encodeConstant(c1 & c2);
+            case "^" -> CPFact.encodeConstant(c1 ^ c2);
+            default -> CPFact.UNDEF_VALUE;
+        };
     }
 }
@@ -0,0 +1,432 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.If;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.SwitchStmt;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Sparse conditional constant propagation in the style of Wegman-Zadeck SCCP.
+ * <p>
+ * Instead of pushing whole {@link CPFact}s through every statement, this
+ * engine keeps one lattice value per definition of int variables, and
+ * propagates values only along def-use chains built from
+ * {@link Stmt#getDef()} and {@link Stmt#getUses()}. A statement is
+ * evaluated only after it becomes executable, and an {@link If} or
+ * {@link SwitchStmt} only makes the successors that its condition may
+ * take executable.
+ * <p>
+ * As the IR is not in SSA form, a use may be reached by several
+ * definitions of a variable, and its value is the meet of the values
+ * of those definitions. Reaching definitions are computed in advance
+ * by a bit-vector pass, only for the variables defined more than once.
+ * <p>
+ * The result is exposed as a {@link NodeResult} whose facts are
+ * created on demand: the IN fact of a statement contains the values of
+ * the variables used by the statement, and the OUT fact additionally
+ * contains the value defined by the statement. The facts of
+ * non-executable statements are empty.
+ */
+class SparseConstantPropagation {
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Statements indexed by {@link Stmt#getIndex()}, including the entry
+     * and exit of the CFG. The entry defines all parameters.
+     */
+    private final Stmt[] stmts;
+
+    /**
+     * Value of the definition of each statement, encoded as in {@link CPFact}.
+     */
+    private final long[] defValues;
+
+    /**
+     * For each statement, the int variables used by it.
+     */
+    private final Var[][] usedVars;
+
+    /**
+     * For each statement, the definitions (indexes of the defining
+     * statements) that reach it, for each variable in {@link #usedVars}.
+     */
+    private final int[][][] useDefs;
+
+    /**
+     * For each statement, the statements that use its definition.
+     */
+    private final List<List<Stmt>> defUses;
+
+    private final BitSet executable;
+
+    /**
+     * For the definitions of the variables defined more than once,
+     * the variable and the defining statement of each definition.
+     */
+    private int[] defVarIndexes;
+
+    private int[] defStmtIndexes;
+
+    SparseConstantPropagation(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        int size = 0;
+        for (Stmt stmt : cfg) {
+            size = Math.max(size, stmt.getIndex() + 1);
+        }
+        stmts = new Stmt[size];
+        for (Stmt stmt : cfg) {
+            stmts[stmt.getIndex()] = stmt;
+        }
+        defValues = new long[size];
+        usedVars = new Var[size][];
+        useDefs = new int[size][][];
+        defUses = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            defUses.add(new ArrayList<>(0));
+        }
+        executable = new BitSet(size);
+        buildDefUseChains();
+    }
+
+    /**
+     * Runs the propagation to fixed point.
+     *
+     * @return the result of constant propagation.
+     */
+    NodeResult<Stmt, CPFact> solve() {
+        Queue<Stmt> flowList = new ArrayDeque<>();
+        Queue<Stmt> useList = new ArrayDeque<>();
+        BitSet inUseList = new BitSet(stmts.length);
+        Stmt entry = cfg.getEntry();
+        executable.set(entry.getIndex());
+        flowList.add(entry);
+        while (!flowList.isEmpty() || !useList.isEmpty()) {
+            Stmt stmt;
+            if (!flowList.isEmpty()) {
+                stmt = flowList.poll();
+            } else {
+                stmt = useList.poll();
+                inUseList.clear(stmt.getIndex());
+            }
+            // evaluate definition and propagate its change along def-use chains
+            int s = stmt.getIndex();
+            if (stmt != entry && getDefVar(stmt) != null) {
+                long value = evaluate(s, ((DefinitionStmt<?, ?>) stmt).getRValue());
+                if (value != defValues[s]) {
+                    defValues[s] = value;
+                    for (Stmt use : defUses.get(s)) {
+                        int u = use.getIndex();
+                        if (executable.get(u) && !inUseList.get(u)) {
+                            inUseList.set(u);
+                            useList.add(use);
+                        }
+                    }
+                }
+            }
+            // make successors executable
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                Stmt succ = edge.getTarget();
+                if (!executable.get(succ.getIndex()) && isExecutable(s, edge)) {
+                    executable.set(succ.getIndex());
+                    flowList.add(succ);
+                }
+            }
+        }
+        return new Result();
+    }
+
+    /**
+     * @return the int variable defined by given statement, or null if
+     * the statement does not define any int variable.
+     */
+    private static @Nullable Var getDefVar(Stmt stmt) {
+        return stmt.getDef().orElse(null) instanceof Var var
+                && ConstantPropagation.canHoldInt(var) ? var : null;
+    }
+
+    /**
+     * Builds {@link #usedVars}, {@link #useDefs} and {@link #defUses}.
+     */
+    private void buildDefUseChains() {
+        IR ir = cfg.getIR();
+        int entry = cfg.getEntry().getIndex();
+        // collect the definitions of each variable
+        int nVars = ir.getVars().size();
+        int[] nDefs = new int[nVars];
+        int[] singleDefs = new int[nVars];
+        for (Var param : ir.getParams()) {
+            if (ConstantPropagation.canHoldInt(param)) {
+                ++nDefs[param.getIndex()];
+                singleDefs[param.getIndex()] = entry;
+                defValues[entry] = CPFact.NAC_VALUE;
+            }
+        }
+        for (Stmt stmt : ir) {
+            Var var = getDefVar(stmt);
+            if (var != null) {
+                ++nDefs[var.getIndex()];
+                singleDefs[var.getIndex()] = stmt.getIndex();
+            }
+        }
+        BitSet[] reachingDefs = computeReachingDefs(nDefs);
+        // connect each use to the definitions of the used variable
+        for (Stmt stmt : cfg) {
+            int s = stmt.getIndex();
+            List<Var> vars = new ArrayList<>(2);
+            for (RValue use : stmt.getUses()) {
+                if (use instanceof Var var && ConstantPropagation.canHoldInt(var)
+                        && nDefs[var.getIndex()] > 0 && !vars.contains(var)) {
+                    vars.add(var);
+                }
+            }
+            usedVars[s] = vars.toArray(new Var[0]);
+            useDefs[s] = new int[vars.size()][];
+            for (int k = 0; k < vars.size(); ++k) {
+                int v = vars.get(k).getIndex();
+                int[] defs;
+                if (nDefs[v] == 1) {
+                    defs = new int[]{ singleDefs[v] };
+                } else {
+                    defs = reachingDefs[s].stream()
+                            .filter(d -> defVarIndexes[d] == v)
+                            .map(d -> defStmtIndexes[d])
+                            .toArray();
+                }
+                useDefs[s][k] = defs;
+                for (int d : defs) {
+                    defUses.get(d).add(stmt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the reaching definitions (of the variables which are
+     * defined more than once) at the entrance of each statement.
+     */
+    private BitSet[] computeReachingDefs(int[] nDefs) {
+        IR ir = cfg.getIR();
+        Stmt entry = cfg.getEntry();
+        // number the definitions
+        int[] gens = new int[stmts.length];
+        Arrays.fill(gens, -1);
+        List<Integer> varIndexes = new ArrayList<>();
+        List<Integer> stmtIndexes = new ArrayList<>();
+        BitSet entryGens = new BitSet();
+        for (Var param : ir.getParams()) {
+            if (ConstantPropagation.canHoldInt(param) && nDefs[param.getIndex()] > 1) {
+                entryGens.set(varIndexes.size());
+                varIndexes.add(param.getIndex());
+                stmtIndexes.add(entry.getIndex());
+            }
+        }
+        for (Stmt stmt : ir) {
+            Var var = getDefVar(stmt);
+            if (var != null && nDefs[var.getIndex()] > 1) {
+                gens[stmt.getIndex()] = varIndexes.size();
+                varIndexes.add(var.getIndex());
+                stmtIndexes.add(stmt.getIndex());
+            }
+        }
+        defVarIndexes = varIndexes.stream().mapToInt(Integer::intValue).toArray();
+        defStmtIndexes = stmtIndexes.stream().mapToInt(Integer::intValue).toArray();
+        BitSet[] kills = new BitSet[nDefs.length];
+        for (int d = 0; d < defVarIndexes.length; ++d) {
+            int v = defVarIndexes[d];
+            if (kills[v] == null) {
+                kills[v] = new BitSet();
+            }
+            kills[v].set(d);
+        }
+        // iterate to fixed point
+        BitSet[] outs = new BitSet[stmts.length];
+        for (int i = 0; i < stmts.length; ++i) {
+            outs[i] = new BitSet();
+        }
+        BitSet[] ins = new BitSet[stmts.length];
+        Queue<Stmt> workList = new ArrayDeque<>();
+        BitSet inWorkList = new BitSet(stmts.length);
+        workList.add(entry);
+        inWorkList.set(entry.getIndex());
+        for (Stmt stmt : cfg) {
+            if (!inWorkList.get(stmt.getIndex())) {
+                inWorkList.set(stmt.getIndex());
+                workList.add(stmt);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.poll();
+            int s = stmt.getIndex();
+            inWorkList.clear(s);
+            BitSet in = new BitSet();
+            if (stmt == entry) {
+                in.or(entryGens);
+            }
+            for (Stmt pred : cfg.getPredsOf(stmt)) {
+                in.or(outs[pred.getIndex()]);
+            }
+            ins[s] = in;
+            BitSet out = (BitSet) in.clone();
+            if (gens[s] != -1) {
+                out.andNot(kills[defVarIndexes[gens[s]]]);
+                out.set(gens[s]);
+            }
+            if (!out.equals(outs[s])) {
+                outs[s] = out;
+                for (Stmt succ : cfg.getSuccsOf(stmt)) {
+                    if (!inWorkList.get(succ.getIndex())) {
+                        inWorkList.set(succ.getIndex());
+                        workList.add(succ);
+                    }
+                }
+            }
+        }
+        return ins;
+    }
+
+    /**
+     * @return the value of the k-th used variable of given statement,
+     * i.e., the meet of the values of the definitions that reach the use.
+     */
+    private long getUseValue(int s, int k) {
+        long value = CPFact.UNDEF_VALUE;
+        for (int d : useDefs[s][k]) {
+            value = CPFact.meet(value, defValues[d]);
+        }
+        return value;
+    }
+
+    /**
+     * @return the value of given variable used by given statement.
+     * Variables that cannot hold int, e.g., the operands of reference
+     * comparisons and null checks, are NAC.
+     */
+    private long getUseValue(int s, Var var) {
+        if (!ConstantPropagation.canHoldInt(var)) {
+            return CPFact.NAC_VALUE;
+        }
+        Var[] vars = usedVars[s];
+        for (int k = 0; k < vars.length; ++k) {
+            if (vars[k] == var) {
+                return getUseValue(s, k);
+            }
+        }
+        // the variable is never defined
+        return CPFact.UNDEF_VALUE;
+    }
+
+    private long evaluate(int s, RValue exp) {
+        if (exp instanceof IntLiteral intLiteral) {
+            return CPFact.encodeConstant(intLiteral.getValue());
+        } else if (exp instanceof Var var) {
+            return getUseValue(s, var);
+        } else if (exp instanceof BinaryExp binaryExp) {
+            return ConstantPropagation.evaluateBinary(binaryExp,
+                    getUseValue(s, binaryExp.getOperand1()),
+                    getUseValue(s, binaryExp.getOperand2()));
+        } else {
+            return CPFact.NAC_VALUE;
+        }
+    }
+
+    /**
+     * @return true if given out edge of the s-th statement may be taken
+     * under the current values, otherwise false.
+     */
+    private boolean isExecutable(int s, Edge<Stmt> edge) {
+        Stmt stmt = stmts[s];
+        if (stmt instanceof If ifStmt) {
+            long cond = evaluate(s, ifStmt.getCondition());
+            if (CPFact.isConstant(cond)) {
+                boolean taken = CPFact.constantOf(cond) != 0;
+                return switch (edge.getKind()) {
+                    case IF_TRUE -> taken;
+                    case IF_FALSE -> !taken;
+                    default -> true;
+                };
+            }
+            return cond == CPFact.NAC_VALUE;
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            long value = getUseValue(s, switchStmt.getVar());
+            if (CPFact.isConstant(value)) {
+                int c = CPFact.constantOf(value);
+                return switch (edge.getKind()) {
+                    case SWITCH_CASE -> edge.getCaseValue() == c;
+                    case SWITCH_DEFAULT -> !switchStmt.getCaseValues().contains(c);
+                    default -> true;
+                };
+            }
+            return value == CPFact.NAC_VALUE;
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * Result of sparse constant propagation, whose facts are created
+     * from the values of the definitions on demand.
+     */
+    private class Result implements NodeResult<Stmt, CPFact> {
+
+        @Override
+        public CPFact getInFact(Stmt stmt) {
+            int s = stmt.getIndex();
+            CPFact fact = new CPFact();
+            if (executable.get(s)) {
+                for (int k = 0; k < usedVars[s].length; ++k) {
+                    fact.updateEncoded(usedVars[s][k], getUseValue(s, k));
+                }
+            }
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt stmt) {
+            CPFact fact = getInFact(stmt);
+            Var var = getDefVar(stmt);
+            if (var != null && executable.get(stmt.getIndex())) {
+                fact.updateEncoded(var, defValues[stmt.getIndex()]);
+            }
+            return fact;
+        }
+    }
+}
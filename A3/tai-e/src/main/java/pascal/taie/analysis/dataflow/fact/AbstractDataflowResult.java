@@ -0,0 +1,45 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+/**
+ * Base class of the objects which manage the data-flow facts associated
+ * with nodes, and are filled in by data-flow solvers. Subclasses decide
+ * how the facts are stored.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public abstract class AbstractDataflowResult<Node, Fact>
+        implements NodeResult<Node, Fact> {
+
+    /**
+     * Associates a data-flow fact with a node as its flowing-in fact.
+     */
+    public abstract void setInFact(Node node, Fact fact);
+
+    /**
+     * Associates a data-flow fact with a node as its flowing-out fact.
+     */
+    public abstract void setOutFact(Node node, Fact fact);
+}
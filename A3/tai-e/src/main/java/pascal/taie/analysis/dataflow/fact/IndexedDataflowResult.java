@@ -0,0 +1,91 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+
+import java.util.Arrays;
+
+/**
+ * A data-flow result which stores the facts in flat arrays indexed
+ * by {@link Indexable#getIndex()} of the nodes, e.g., {@code Stmt}s,
+ * instead of hash maps. This saves the hash lookups in the solvers,
+ * and the map entries, which take most of the memory of the result.
+ *
+ * @param <Node> type of nodes, which must implement {@link Indexable}
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Node, Fact> extends AbstractDataflowResult<Node, Fact> {
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param capacity the number of nodes, i.e., the maximum node index
+     *                 plus one. The result grows when necessary.
+     */
+    public IndexedDataflowResult(int capacity) {
+        inFacts = new Object[capacity];
+        outFacts = new Object[capacity];
+    }
+
+    private static int indexOf(Object node) {
+        return ((Indexable) node).getIndex();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getInFact(Node node) {
+        int i = indexOf(node);
+        return i < inFacts.length ? (Fact) inFacts[i] : null;
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        int i = indexOf(node);
+        ensureCapacity(i + 1);
+        inFacts[i] = fact;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Fact getOutFact(Node node) {
+        int i = indexOf(node);
+        return i < outFacts.length ? (Fact) outFacts[i] : null;
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        int i = indexOf(node);
+        ensureCapacity(i + 1);
+        outFacts[i] = fact;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > inFacts.length) {
+            inFacts = Arrays.copyOf(inFacts, capacity);
+            outFacts = Arrays.copyOf(outFacts, capacity);
+        }
+    }
+}
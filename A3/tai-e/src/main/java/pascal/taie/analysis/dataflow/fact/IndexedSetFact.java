@@ -0,0 +1,344 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Streams;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts as dense bit vectors.
+ * <p>
+ * Each element is identified by its {@link Indexable#getIndex() index},
+ * and the facts of the same domain share one list of all elements, i.e.,
+ * the universe, where the element at position i has index i.
+ * All bulk operations work on 64-bit words, so meet and transfer do not
+ * allocate any memory.
+ * <p>
+ * A fact created without a universe learns its elements as they are
+ * added, and grows its bit vector on demand.
+ *
+ * @param <E> type of elements
+ */
+public class IndexedSetFact<E extends Indexable> {
+
+    private static final int WORD_SHIFT = 6;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * All elements that may be contained in this fact.
+     */
+    private final List<E> universe;
+
+    /**
+     * Whether {@link #universe} is learnt from the added elements.
+     */
+    private final boolean growable;
+
+    private long[] words;
+
+    /**
+     * Creates an empty fact whose universe grows with the added elements.
+     */
+    public IndexedSetFact() {
+        this(new ArrayList<>(), true, EMPTY_WORDS);
+    }
+
+    /**
+     * Creates an empty fact over given universe.
+     *
+     * @param universe all possible elements, where each element is
+     *                 located at the position of its index.
+     */
+    public IndexedSetFact(List<E> universe) {
+        this(universe, false, new long[wordIndex(universe.size() - 1) + 1]);
+    }
+
+    private IndexedSetFact(List<E> universe, boolean growable, long[] words) {
+        this.universe = universe;
+        this.growable = growable;
+        this.words = words;
+    }
+
+    private static int wordIndex(int index) {
+        return index >> WORD_SHIFT;
+    }
+
+    /**
+     * Ensures that this fact has at least given number of words.
+     */
+    private void ensureWords(int nWords) {
+        if (words.length < nWords) {
+            words = Arrays.copyOf(words, nWords);
+        }
+    }
+
+    /**
+     * Records the elements of the given bits of word w in the universe
+     * of this fact, if the universe is growable.
+     */
+    private void learn(int w, long bits, List<E> from) {
+        if (growable && from != universe) {
+            while (bits != 0) {
+                int i = (w << WORD_SHIFT) + Long.numberOfTrailingZeros(bits);
+                learn(i, from.get(i));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private void learn(int i, E e) {
+        while (universe.size() <= i) {
+            universe.add(null);
+        }
+        universe.set(i, e);
+    }
+
+    /**
+     * @return true if this set contains the specified element, otherwise false.
+     */
+    public boolean contains(E e) {
+        int i = e.getIndex();
+        int w = wordIndex(i);
+        return w < words.length && (words[w] & (1L << i)) != 0;
+    }
+
+    /**
+     * Adds an element to this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean add(E e) {
+        int i = e.getIndex();
+        int w = wordIndex(i);
+        ensureWords(w + 1);
+        long old = words[w];
+        words[w] = old | (1L << i);
+        if (words[w] != old) {
+            if (growable) {
+                learn(i, e);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes an element from this fact.
+     *
+     * @return true if an element was removed as a result of the call, otherwise false.
+     */
+    public boolean remove(E e) {
+        int i = e.getIndex();
+        int w = wordIndex(i);
+        if (w >= words.length) {
+            return false;
+        }
+        long old = words[w];
+        words[w] = old & ~(1L << i);
+        return words[w] != old;
+    }
+
+    /**
+     * Unions other fact into this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean union(IndexedSetFact<E> other) {
+        return unionExcept(other, null);
+    }
+
+    /**
+     * Unions other fact, except the given element, into this fact,
+     * i.e., this = this ∪ (other - {e}).
+     *
+     * @param e the element to be excluded, or null if no element is excluded.
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean unionExcept(IndexedSetFact<E> other, @Nullable E e) {
+        int ew = -1;
+        long mask = 0;
+        if (e != null) {
+            ew = wordIndex(e.getIndex());
+            mask = 1L << e.getIndex();
+        }
+        long[] otherWords = other.words;
+        ensureWords(otherWords.length);
+        boolean changed = false;
+        for (int w = 0; w < otherWords.length; ++w) {
+            long old = words[w];
+            long bits = otherWords[w];
+            if (w == ew) {
+                bits &= ~mask;
+            }
+            words[w] = old | bits;
+            if (words[w] != old) {
+                changed = true;
+                learn(w, bits & ~old, other.universe);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Intersects this fact with other fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean intersect(IndexedSetFact<E> other) {
+        long[] otherWords = other.words;
+        boolean changed = false;
+        for (int w = 0; w < words.length; ++w) {
+            long old = words[w];
+            words[w] = w < otherWords.length ? old & otherWords[w] : 0;
+            changed |= words[w] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * Removes all elements of other fact from this fact.
+     *
+     * @return true if this fact changed as a result of the call, otherwise false.
+     */
+    public boolean difference(IndexedSetFact<E> other) {
+        long[] otherWords = other.words;
+        int n = Math.min(words.length, otherWords.length);
+        boolean changed = false;
+        for (int w = 0; w < n; ++w) {
+            long old = words[w];
+            words[w] = old & ~otherWords[w];
+            changed |= words[w] != old;
+        }
+        return changed;
+    }
+
+    /**
+     * Sets the content of this set to the same as other set.
+     */
+    public void set(IndexedSetFact<E> other) {
+        long[] otherWords = other.words;
+        ensureWords(otherWords.length);
+        System.arraycopy(otherWords, 0, words, 0, otherWords.length);
+        Arrays.fill(words, otherWords.length, words.length, 0);
+        for (int w = 0; w < otherWords.length; ++w) {
+            learn(w, otherWords[w], other.universe);
+        }
+    }
+
+    /**
+     * Creates and returns a copy of this fact.
+     */
+    public IndexedSetFact<E> copy() {
+        return new IndexedSetFact<>(universe, growable, words.clone());
+    }
+
+    /**
+     * Clears all content in this fact.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Stream<E> stream() {
+        return indexes().mapToObj(universe::get);
+    }
+
+    /**
+     * @return indexes of the elements in this fact, in ascending order.
+     */
+    private IntStream indexes() {
+        return IntStream.range(0, words.length)
+                .flatMap(w -> {
+                    long word = words[w];
+                    IntStream.Builder builder = IntStream.builder();
+                    while (word != 0) {
+                        builder.add((w << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                    return builder.build();
+                });
+    }
+
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * @return number of words up to and including the last non-zero word.
+     */
+    private int usedWords() {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0) {
+            --n;
+        }
+        return n;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexedSetFact<?> that)) {
+            return false;
+        }
+        // facts may have different lengths if one of them is growable
+        return Arrays.equals(words, 0, usedWords(),
+                that.words, 0, that.usedWords());
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int w = 0, n = usedWords(); w < n; ++w) {
+            result = 31 * result + Long.hashCode(words[w]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
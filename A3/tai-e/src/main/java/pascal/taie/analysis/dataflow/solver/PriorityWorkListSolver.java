@@ -0,0 +1,146 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.AbstractDataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list solver which always picks the node with the highest priority.
+ * For forward analysis, nodes are prioritized by reverse postorder of
+ * the CFG, so that a node is usually visited after all its predecessors;
+ * for backward analysis, nodes are prioritized by postorder.
+ * <p>
+ * The work list is a bitmap indexed by priority, which also ensures
+ * that each node appears in the work list at most once.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result,
+                                   SolverMetrics metrics) {
+        List<Node> order = reversePostOrder(cfg);
+        Map<Node, Integer> priorities = getPriorities(order);
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            metrics.countWorkListPop();
+            Node node = order.get(i);
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                meetInto(result.getOutFact(pred), in, metrics);
+            }
+            if (transferNode(node, in, out, metrics)) {
+                cfg.getSuccsOf(node).forEach(succ ->
+                        workList.set(priorities.get(succ)));
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result,
+                                   SolverMetrics metrics) {
+        List<Node> order = reversePostOrder(cfg);
+        Collections.reverse(order);
+        Map<Node, Integer> priorities = getPriorities(order);
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            metrics.countWorkListPop();
+            Node node = order.get(i);
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                meetInto(result.getInFact(succ), out, metrics);
+            }
+            if (transferNode(node, in, out, metrics)) {
+                cfg.getPredsOf(node).forEach(pred ->
+                        workList.set(priorities.get(pred)));
+            }
+        }
+    }
+
+    /**
+     * @return nodes of given CFG in reverse postorder of a depth-first
+     * traversal from the entry. Nodes unreachable from the entry are
+     * placed at the end.
+     */
+    private static <Node> List<Node> reversePostOrder(CFG<Node> cfg) {
+        List<Node> postOrder = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        // use explicit stack to avoid stack overflow on large methods
+        Deque<Node> nodes = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visited.add(cfg.getEntry());
+        nodes.push(cfg.getEntry());
+        succs.push(cfg.getSuccsOf(cfg.getEntry()).iterator());
+        while (!nodes.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    nodes.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.add(nodes.pop());
+                succs.pop();
+            }
+        }
+        Collections.reverse(postOrder);
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                postOrder.add(node);
+            }
+        }
+        return postOrder;
+    }
+
+    private static <Node> Map<Node, Integer> getPriorities(List<Node> order) {
+        Map<Node, Integer> priorities = Maps.newMap(order.size());
+        for (int i = 0; i < order.size(); ++i) {
+            priorities.put(order.get(i), i);
+        }
+        return priorities;
+    }
+}
@@ -22,9 +22,25 @@
 
 package pascal.taie.analysis.dataflow.solver;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.AbstractDataflowResult;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.Indexable;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -35,8 +51,24 @@ import pascal.taie.analysis.graph.cfg.CFG;
  */
 public abstract class Solver<Node, Fact> {
 
+    private static final Logger logger = LogManager.getLogger(Solver.class);
+
     protected final DataflowAnalysis<Node, Fact> analysis;
 
+    /**
+     * Number of node visits, i.e., node transfers, performed by this solver
+     * on all CFGs it has solved.
+     */
+    private final LongAdder nodeVisits = new LongAdder();
+
+    /**
+     * Receives the metrics of each solved CFG, or null if metrics
+     * are not consumed. As solvers are shared by parallel method
+     * analyses, the consumer must be thread-safe.
+     */
+    @Nullable
+    private Consumer<SolverMetrics> metricsConsumer;
+
     protected Solver(DataflowAnalysis<Node, Fact> analysis) {
         this.analysis = analysis;
     }
@@ -46,7 +78,78 @@ public abstract class Solver<Node, Fact> {
      */
     public static <Node, Fact> Solver<Node, Fact> makeSolver(
             DataflowAnalysis<Node, Fact> analysis) {
-        return new WorkListSolver<>(analysis);
+        return makeSolver(analysis, null);
+    }
+
+    /**
+     * Static factory method to create a new solver of given kind.
+     *
+     * @param kind the kind of the solver, i.e., "worklist" (default) which
+     *             visits nodes in arbitrary order, or "rpo" which visits
+     *             nodes in reverse postorder (postorder for backward analysis).
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, @Nullable String kind) {
+        if (kind == null) {
+            kind = "worklist";
+        }
+        return switch (kind) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "rpo" -> new PriorityWorkListSolver<>(analysis);
+            default -> throw new ConfigException("Unknown solver: " + kind);
+        };
+    }
+
+    /**
+     * @return the number of node visits performed by this solver so far.
+     */
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    /**
+     * Sets the consumer of the metrics of each CFG solved by this solver.
+     * The sizes of facts are only measured when the consumer is set.
+     */
+    public void setMetricsConsumer(@Nullable Consumer<SolverMetrics> metricsConsumer) {
+        this.metricsConsumer = metricsConsumer;
+    }
+
+    /**
+     * Meets a fact into another (target) fact, and counts the meet.
+     */
+    protected void meetInto(Fact fact, Fact target, SolverMetrics metrics) {
+        metrics.countMeet();
+        analysis.meetInto(fact, target);
+    }
+
+    /**
+     * Transfers given node, and counts the transfer.
+     *
+     * @return true if the transfer changed the out (in) fact, otherwise false.
+     */
+    protected boolean transferNode(Node node, Fact in, Fact out, SolverMetrics metrics) {
+        boolean changed = analysis.transferNode(node, in, out);
+        metrics.countTransfer(changed);
+        if (changed && metrics.isMeasuringFactSize()) {
+            metrics.updateFactSize(analysis.getFactSize(
+                    analysis.isForward() ? out : in));
+        }
+        return changed;
+    }
+
+    private SolverMetrics startMetrics(CFG<Node> cfg) {
+        return new SolverMetrics(cfg.getMethod(), metricsConsumer != null);
+    }
+
+    private void finishMetrics(SolverMetrics metrics, long startTime) {
+        metrics.setWallTime(System.nanoTime() - startTime);
+        nodeVisits.add(metrics.getWorkListPops());
+        logger.debug("Solved {} with {} node visits",
+                metrics.getMethod(), metrics.getWorkListPops());
+        if (metricsConsumer != null) {
+            metricsConsumer.accept(metrics);
+        }
     }
 
     /**
@@ -55,19 +158,123 @@ public abstract class Solver<Node, Fact> {
      * @param cfg control-flow graph where the analysis is performed on
      * @return the analysis result
      */
-    public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = initialize(cfg);
-        doSolve(cfg, result);
+    public AbstractDataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        long startTime = System.nanoTime();
+        SolverMetrics metrics = startMetrics(cfg);
+        AbstractDataflowResult<Node, Fact> result = initialize(cfg);
+        doSolve(cfg, result, metrics);
+        finishMetrics(metrics, startTime);
         return result;
     }
 
+    /**
+     * Solves given CFG incrementally, starting from the result of
+     * an earlier version of the same method.
+     * <p>
+     * The facts of the nodes that may be affected by the changed nodes,
+     * i.e., the nodes reachable from them along the direction of
+     * the analysis, are reset to initial facts and re-solved. The facts
+     * of all other nodes are taken from {@code previous} as is, since
+     * they only depend on unchanged nodes. Thus the new result is the
+     * same as the one given by {@link #solve(CFG)}.
+     *
+     * @param cfg      control-flow graph of the current version
+     * @param previous result of the earlier version. Its facts are
+     *                 looked up by the nodes of {@code cfg}, thus it must
+     *                 be able to identify the unchanged nodes across
+     *                 versions, e.g., by their indexes.
+     * @param changed  nodes of {@code cfg} which differ from the earlier
+     *                 version, including nodes whose predecessors or
+     *                 successors differ.
+     * @return the analysis result
+     */
+    public AbstractDataflowResult<Node, Fact> solve(CFG<Node> cfg,
+            NodeResult<Node, Fact> previous, Set<Node> changed) {
+        long startTime = System.nanoTime();
+        SolverMetrics metrics = startMetrics(cfg);
+        Set<Node> affected = getAffectedNodes(cfg, changed);
+        AbstractDataflowResult<Node, Fact> result = newResult(cfg);
+        Node boundary = analysis.isForward() ? cfg.getEntry() : cfg.getExit();
+        for (Node node : cfg) {
+            if (!affected.contains(node)) {
+                result.setInFact(node, previous.getInFact(node));
+                result.setOutFact(node, previous.getOutFact(node));
+            } else if (node.equals(boundary)) {
+                result.setInFact(node, analysis.newBoundaryFact(cfg));
+                result.setOutFact(node, analysis.newBoundaryFact(cfg));
+            } else {
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
+            }
+        }
+        doSolveIncremental(cfg, result, affected, metrics);
+        finishMetrics(metrics, startTime);
+        return result;
+    }
+
+    /**
+     * @return the nodes reachable from given nodes along the direction
+     * of the analysis, including the given nodes.
+     */
+    private Set<Node> getAffectedNodes(CFG<Node> cfg, Set<Node> changed) {
+        Set<Node> affected = new HashSet<>(changed);
+        Deque<Node> stack = new ArrayDeque<>(changed);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            Set<Node> nexts = analysis.isForward() ?
+                    cfg.getSuccsOf(node) : cfg.getPredsOf(node);
+            for (Node next : nexts) {
+                if (affected.add(next)) {
+                    stack.push(next);
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Re-solves the facts of the affected nodes with a work list.
+     * The facts of the other nodes are final and never modified.
+     */
+    private void doSolveIncremental(CFG<Node> cfg,
+            AbstractDataflowResult<Node, Fact> result, Set<Node> affected,
+            SolverMetrics metrics) {
+        boolean forward = analysis.isForward();
+        Queue<Node> workList = new ArrayDeque<>(affected);
+        Set<Node> inWorkList = new HashSet<>(affected);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            inWorkList.remove(node);
+            metrics.countWorkListPop();
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            if (forward) {
+                for (Node pred : cfg.getPredsOf(node)) {
+                    meetInto(result.getOutFact(pred), in, metrics);
+                }
+            } else {
+                for (Node succ : cfg.getSuccsOf(node)) {
+                    meetInto(result.getInFact(succ), out, metrics);
+                }
+            }
+            if (transferNode(node, in, out, metrics)) {
+                for (Node next : forward ?
+                        cfg.getSuccsOf(node) : cfg.getPredsOf(node)) {
+                    if (inWorkList.add(next)) {
+                        workList.add(next);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
-    private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+    private AbstractDataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
+        AbstractDataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,7 +283,18 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
-    protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    /**
+     * @return a new empty data-flow result for given CFG.
+     */
+    private AbstractDataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        // statements of a method, together with the entry and exit nodes
+        // of its CFG, are indexed from 0, so array-based result suffices
+        return cfg.getEntry() instanceof Indexable ?
+                new IndexedDataflowResult<>(cfg.getNumberOfNodes()) :
+                new DataflowResult<>();
+    }
+
+    protected void initializeForward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result) {
         // TODO - finish me
         result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
         result.setInFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
@@ -84,13 +302,13 @@ public abstract class Solver<Node, Fact> {
         {
             if(!cfg.isEntry(node))
             {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
 
-    protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected void initializeBackward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result) {
         Node exit_node = cfg.getExit();
         result.setInFact(exit_node, analysis.newBoundaryFact(cfg));
         result.setOutFact(exit_node, analysis.newBoundaryFact(cfg));
@@ -98,8 +316,8 @@ public abstract class Solver<Node, Fact> {
         {
             if (!cfg.isExit(node))
             {
-                result.setInFact(node, analysis.newInitialFact());
-                result.setOutFact(node, analysis.newInitialFact());
+                result.setInFact(node, analysis.newInitialFact(cfg));
+                result.setOutFact(node, analysis.newInitialFact(cfg));
             }
         }
     }
@@ -107,15 +325,27 @@ public abstract class Solver<Node, Fact> {
     /**
      * Solves the data-flow problem for given CFG.
      */
-    private void doSolve(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    private void doSolve(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result,
+                         SolverMetrics metrics) {
         if (analysis.isForward()) {
-            doSolveForward(cfg, result);
+            doSolveForward(cfg, result, metrics);
         } else {
-            doSolveBackward(cfg, result);
+            doSolveBackward(cfg, result, metrics);
         }
     }
 
-    protected abstract void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Solves forward analysis. Implementations should count their work
+     * in {@code metrics}, and meet and transfer facts via
+     * {@link #meetInto(Object, Object, SolverMetrics)} and
+     * {@link #transferNode(Object, Object, Object, SolverMetrics)}.
+     */
+    protected abstract void doSolveForward(CFG<Node> cfg,
+            AbstractDataflowResult<Node, Fact> result, SolverMetrics metrics);
 
-    protected abstract void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result);
+    /**
+     * Solves backward analysis, see {@link #doSolveForward}.
+     */
+    protected abstract void doSolveBackward(CFG<Node> cfg,
+            AbstractDataflowResult<Node, Fact> result, SolverMetrics metrics);
 }
@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.language.classes.JMethod;
+
+/**
+ * Metrics of solving a CFG, collected by {@link Solver}.
+ * <p>
+ * Fact sizes are given by {@link pascal.taie.analysis.dataflow.analysis.DataflowAnalysis#getFactSize},
+ * and they are only measured when the metrics are consumed,
+ * see {@link Solver#setMetricsConsumer}.
+ */
+public class SolverMetrics {
+
+    private final JMethod method;
+
+    private final boolean measureFactSize;
+
+    private int workListPops;
+
+    private int transfers;
+
+    private int changedTransfers;
+
+    private int meets;
+
+    private int maxFactSize;
+
+    private long wallTime;
+
+    SolverMetrics(JMethod method, boolean measureFactSize) {
+        this.method = method;
+        this.measureFactSize = measureFactSize;
+    }
+
+    /**
+     * @return the key of the metrics of given analysis stored in IR.
+     */
+    public static String getResultKey(String analysisId) {
+        return analysisId + "-metrics";
+    }
+
+    void countWorkListPop() {
+        ++workListPops;
+    }
+
+    void countMeet() {
+        ++meets;
+    }
+
+    void countTransfer(boolean changed) {
+        ++transfers;
+        if (changed) {
+            ++changedTransfers;
+        }
+    }
+
+    boolean isMeasuringFactSize() {
+        return measureFactSize;
+    }
+
+    void updateFactSize(int size) {
+        maxFactSize = Math.max(maxFactSize, size);
+    }
+
+    void setWallTime(long wallTime) {
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * @return the method of the solved CFG.
+     */
+    public JMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the number of nodes popped from the work list,
+     * i.e., the number of node visits.
+     */
+    public int getWorkListPops() {
+        return workListPops;
+    }
+
+    /**
+     * @return the number of calls to the node transfer function.
+     */
+    public int getTransfers() {
+        return transfers;
+    }
+
+    /**
+     * @return the number of node transfers which changed the fact.
+     */
+    public int getChangedTransfers() {
+        return changedTransfers;
+    }
+
+    /**
+     * @return the number of calls to the meet function.
+     */
+    public int getMeets() {
+        return meets;
+    }
+
+    /**
+     * @return the maximum size of the facts produced by node transfers,
+     * or 0 if fact sizes are not measured.
+     */
+    public int getMaxFactSize() {
+        return maxFactSize;
+    }
+
+    /**
+     * @return the wall time of solving the CFG in nanoseconds.
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * @return the JSON object of these metrics of given analysis.
+     */
+    public String toJson(String analysisId) {
+        return String.format("{\"method\": \"%s\", \"analysis\": \"%s\", " +
+                        "\"workListPops\": %d, \"transfers\": %d, " +
+                        "\"changedTransfers\": %d, \"meets\": %d, " +
+                        "\"maxFactSize\": %d, \"wallTimeNanos\": %d}",
+                escape(String.valueOf(method)), escape(analysisId),
+                workListPops, transfers, changedTransfers, meets,
+                maxFactSize, wallTime);
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
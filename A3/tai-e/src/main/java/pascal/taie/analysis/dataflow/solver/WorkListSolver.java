@@ -23,7 +23,7 @@
 package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
-import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.AbstractDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
 import java.util.HashSet;
@@ -36,22 +36,23 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected void doSolveForward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result,
+                                   SolverMetrics metrics) {
         // TODO - finish me
         Set<Node> workSet = new HashSet<>(cfg.getNodes());
-
         while(!workSet.isEmpty())
         {
             Node node = workSet.iterator().next();
             workSet.remove(node);
+            metrics.countWorkListPop();
 
             Fact in = result.getInFact(node);
             Fact out = result.getOutFact(node);
             for(Node preNode : cfg.getPredsOf(node))
             {
-                analysis.meetInto(result.getOutFact(preNode),in);
+                meetInto(result.getOutFact(preNode), in, metrics);
             }
-            if(analysis.transferNode(node,in,out))
+            if(transferNode(node, in, out, metrics))
             {
                 workSet.addAll(cfg.getSuccsOf(node));
             }
@@ -59,20 +60,21 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
     }
 
     @Override
-    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+    protected void doSolveBackward(CFG<Node> cfg, AbstractDataflowResult<Node, Fact> result,
+                                   SolverMetrics metrics) {
         Set<Node> workSet = new HashSet<>(cfg.getNodes());
-
         while(!workSet.isEmpty())
         {
             Node node = workSet.iterator().next();
             workSet.remove(node);
+            metrics.countWorkListPop();
             Fact in = result.getInFact(node);
             Fact out = result.getOutFact(node);
             for(Node succ :cfg.getSuccsOf(node))
             {
-                analysis.meetInto(result.getInFact(succ),out);
+                meetInto(result.getInFact(succ), out, metrics);
             }
-            if(analysis.transferNode(node,in,out))
+            if(transferNode(node, in, out, metrics))
             {
                 workSet.addAll(cfg.getPredsOf(node));
             }
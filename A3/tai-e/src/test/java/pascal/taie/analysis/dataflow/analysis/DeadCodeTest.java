@@ -23,7 +23,17 @@
 package pascal.taie.analysis.dataflow.analysis;
 
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class DeadCodeTest {
 
@@ -34,6 +44,13 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testSparseDCD(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;sparse:true");
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -58,4 +75,56 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testLoopsRPOSolver() {
+        Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:rpo",
+                "-a", "constprop=edge-refine:false;solver:rpo");
+    }
+
+    @Test
+    public void testUnreachableIfBranchSparse() {
+        testSparseDCD("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testNonIntConditionSparse() {
+        // branches on references and longs must not stop the propagation
+        testSparseDCD("NonIntCondition");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchFused() {
+        Tests.test("UnreachableSwitchBranch", "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "fused:true;" +
+                        "livevar:{strongly:false};constprop:{edge-refine:false}");
+        // the results of constprop and livevar are not kept in IR
+        World.get().getMainMethod().getDeclaringClass()
+                .getDeclaredMethods()
+                .stream()
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .map(JMethod::getIR)
+                .forEach(ir -> {
+                    assertNotNull(ir.getResult(DeadCodeDetection.ID));
+                    assertNull(ir.getResult(ConstantPropagation.ID));
+                    assertNull(ir.getResult(LiveVariableAnalysis.ID));
+                });
+    }
+
+    @Test
+    public void testLoopsIncremental() {
+        for (int i = 0; i < 2; ++i) {
+            Tests.test("Loops", "src/test/resources/dataflow/deadcode/",
+                    DeadCodeDetection.ID,
+                    "-a", "livevar=strongly:false;incremental:true",
+                    "-a", "constprop=edge-refine:false;incremental:true");
+        }
+        // the second run reuses the results of the first run
+        for (String id : List.of(ConstantPropagation.ID, LiveVariableAnalysis.ID)) {
+            assertTrue(IncrementalResults.getReusedMethods(id) > 0);
+            assertEquals(0, IncrementalResults.getSolvedMethods(id));
+        }
+    }
 }
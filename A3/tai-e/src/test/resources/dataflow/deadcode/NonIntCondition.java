@@ -0,0 +1,16 @@
+class NonIntCondition {
+
+    int compare(Object o, Object p, long a, long b) {
+        int x = 1;
+        if (o == p) {
+            x = 2;
+        }
+        if (o == null) {
+            x = 3;
+        }
+        if (a < b) {
+            x = 4;
+        }
+        return x;
+    }
+}
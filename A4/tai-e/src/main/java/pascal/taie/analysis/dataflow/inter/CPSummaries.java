@@ -0,0 +1,235 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.Solver;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Method summaries for summary-based inter-procedural constant propagation.
+ * <p>
+ * A summary maps the values of the arguments of a method to the value
+ * returned by the method. It is computed by solving the method body
+ * intra-procedurally (by {@link Solver}) with the parameters bound to
+ * the argument values,
+ * where the values returned by the calls in the body are again obtained
+ * from the summaries of the callees. Summaries are cached, and each method
+ * is analyzed for at most {@link #MAX_CONTEXTS} distinct argument values;
+ * beyond that, the arguments are widened to NAC. Recursive calls of
+ * the summaries under computation return NAC.
+ */
+class CPSummaries {
+
+    /**
+     * Maximum number of distinct argument values (besides all-NAC)
+     * for which a method is analyzed.
+     */
+    private static final int MAX_CONTEXTS = 16;
+
+    private final ConstantPropagation cp;
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final Map<JMethod, Map<List<Value>, Value>> summaries = Maps.newMap();
+
+    private final Set<Pair<JMethod, List<Value>>> inProgress = Sets.newSet();
+
+    private int analyzedMethods = 0;
+
+    CPSummaries(ConstantPropagation cp, ICFG<JMethod, Stmt> icfg) {
+        this.cp = cp;
+        this.icfg = icfg;
+    }
+
+    /**
+     * @return the number of times that method bodies were analyzed
+     * for computing summaries.
+     */
+    int getAnalyzedMethods() {
+        return analyzedMethods;
+    }
+
+    /**
+     * @return the value returned by the given call site, where the
+     * values of the arguments are given by {@code in}.
+     */
+    Value getReturnValue(Invoke callSite, CPFact in) {
+        List<Value> args = callSite.getInvokeExp()
+                .getArgs()
+                .stream()
+                .map(in::get)
+                .toList();
+        Set<JMethod> callees = icfg.getCalleesOf(callSite);
+        if (callees.isEmpty()) {
+            return Value.getNAC();
+        }
+        Value result = Value.getUndef();
+        for (JMethod callee : callees) {
+            result = cp.meetValue(result, getReturnValue(callee, args));
+        }
+        return result;
+    }
+
+    private Value getReturnValue(JMethod method, List<Value> args) {
+        if (method.isAbstract() || method.isNative()) {
+            return Value.getNAC();
+        }
+        Map<List<Value>, Value> summary = summaries.computeIfAbsent(
+                method, m -> Maps.newMap());
+        Value result = summary.get(args);
+        if (result != null) {
+            return result;
+        }
+        if (summary.size() >= MAX_CONTEXTS) {
+            args = Collections.nCopies(args.size(), Value.getNAC());
+            result = summary.get(args);
+            if (result != null) {
+                return result;
+            }
+        }
+        Pair<JMethod, List<Value>> key = new Pair<>(method, args);
+        if (!inProgress.add(key)) {
+            return Value.getNAC();
+        }
+        result = computeReturnValue(method, args);
+        inProgress.remove(key);
+        summary.put(args, result);
+        return result;
+    }
+
+    /**
+     * Analyzes the given method with its parameters bound to given values.
+     *
+     * @return the value returned by the method.
+     */
+    private Value computeReturnValue(JMethod method, List<Value> args) {
+        ++analyzedMethods;
+        IR ir = method.getIR();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        DataflowResult<Stmt, CPFact> result =
+                Solver.makeSolver(new BoundAnalysis(ir, args)).solve(cfg);
+        CPFact exitIn = result.getInFact(cfg.getExit());
+        Value value = Value.getUndef();
+        for (Var returnVar : ir.getReturnVars()) {
+            value = cp.meetValue(value, exitIn.get(returnVar));
+        }
+        return value;
+    }
+
+    /**
+     * Transfer function of summary-based constant propagation, which
+     * obtains the values returned by calls from the summaries.
+     */
+    boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+        if (stmt instanceof Invoke invoke) {
+            CPFact updated = in.copy();
+            Var result = invoke.getLValue();
+            if (result != null && ConstantPropagation.canHoldInt(result)) {
+                updated.update(result, getReturnValue(invoke, in));
+            }
+            return out.copyFrom(updated);
+        } else {
+            return cp.transferNode(stmt, in, out);
+        }
+    }
+
+    /**
+     * Intra-procedural constant propagation of a method whose parameters
+     * are bound to given argument values, and whose calls are transferred
+     * by {@link #transferNode(Stmt, CPFact, CPFact)}.
+     */
+    private class BoundAnalysis implements DataflowAnalysis<Stmt, CPFact> {
+
+        private final IR ir;
+
+        private final List<Value> args;
+
+        private BoundAnalysis(IR ir, List<Value> args) {
+            this.ir = ir;
+            this.args = args;
+        }
+
+        @Override
+        public boolean isForward() {
+            return cp.isForward();
+        }
+
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            CPFact boundary = new CPFact();
+            for (int i = 0; i < ir.getParams().size(); ++i) {
+                Var param = ir.getParam(i);
+                if (ConstantPropagation.canHoldInt(param)) {
+                    boundary.update(param, args.get(i));
+                }
+            }
+            return boundary;
+        }
+
+        @Override
+        public CPFact newInitialFact() {
+            return cp.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            cp.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            return CPSummaries.this.transferNode(stmt, in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return false;
+        }
+
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
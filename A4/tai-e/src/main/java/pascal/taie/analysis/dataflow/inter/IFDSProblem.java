@@ -0,0 +1,79 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+
+import java.util.Set;
+
+/**
+ * Template interface for defining IFDS problems, i.e., inter-procedural,
+ * finite, distributive subset problems, which are solved by {@link IFDSSolver}.
+ * <p>
+ * The data-flow facts of an IFDS problem are individual facts (e.g.,
+ * a tainted variable) instead of whole sets, and its flow functions map
+ * each single fact to the facts it produces, so that only the facts
+ * actually flowing are propagated. The flow function of an ICFG edge
+ * describes the effect of the source node of the edge. The special
+ * zero fact holds at all reachable nodes, and is used to generate facts
+ * independent of incoming facts.
+ *
+ * @param <Node> type of ICFG nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface IFDSProblem<Node, Fact> {
+
+    /**
+     * @return the zero fact.
+     */
+    Fact zeroValue();
+
+    /**
+     * Flow function for intra-procedural edges.
+     *
+     * @return the facts at the target of the edge produced by
+     * {@code fact} at the source of the edge.
+     */
+    Set<Fact> transferNormalEdge(NormalEdge<Node> edge, Fact fact);
+
+    /**
+     * Flow function for the edges from call sites to their return sites,
+     * which typically passes the facts unrelated to the callees.
+     */
+    Set<Fact> transferCallToReturnEdge(CallToReturnEdge<Node> edge, Fact fact);
+
+    /**
+     * Flow function for the edges from call sites to callee entries,
+     * which typically maps arguments to parameters.
+     */
+    Set<Fact> transferCallEdge(CallEdge<Node> edge, Fact callSiteFact);
+
+    /**
+     * Flow function for the edges from callee exits to return sites,
+     * which typically maps returned values to the call results.
+     */
+    Set<Fact> transferReturnEdge(ReturnEdge<Node> edge, Fact exitFact);
+}
@@ -0,0 +1,222 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Tabulation solver for {@link IFDSProblem}s (Reps, Horwitz and Sagiv,
+ * POPL 1995) on an ICFG.
+ * <p>
+ * The solver computes path edges (jump functions) {@code <sp, d1> -> <n, d2>},
+ * meaning that fact {@code d2} holds at node {@code n} if {@code d1} holds
+ * at the entry {@code sp} of the method containing {@code n}. When a path
+ * edge reaches the exit of a method, it is memoized as an end summary of
+ * the method for {@code d1}, and applied at all call sites that pass
+ * {@code d1} to the method, so that each method is analyzed only once
+ * for each entry fact. The facts at each node are those holding before
+ * the node is executed.
+ *
+ * @param <Method> type of methods
+ * @param <Node>   type of ICFG nodes
+ * @param <Fact>   type of data-flow facts
+ */
+public class IFDSSolver<Method, Node, Fact> {
+
+    private final IFDSProblem<Node, Fact> problem;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final Fact zero;
+
+    /**
+     * Map from (n, d2) to d1 of path edges {@code <sp, d1> -> <n, d2>}.
+     */
+    private final MultiMap<Pair<Node, Fact>, Fact> jumpFunctions = Maps.newMultiMap();
+
+    /**
+     * Map from (sp, d1) to d2 of path edges {@code <sp, d1> -> <exit, d2>}.
+     */
+    private final MultiMap<Pair<Node, Fact>, Fact> endSummaries = Maps.newMultiMap();
+
+    /**
+     * Map from callee entry facts (sp, d3) to call site facts (c, d2)
+     * that produce them.
+     */
+    private final MultiMap<Pair<Node, Fact>, Pair<Node, Fact>> incoming = Maps.newMultiMap();
+
+    /**
+     * Facts at each node.
+     */
+    private final MultiMap<Node, Fact> results = Maps.newMultiMap();
+
+    private final Queue<PathEdge<Node, Fact>> workList = new ArrayDeque<>();
+
+    public IFDSSolver(IFDSProblem<Node, Fact> problem, ICFG<Method, Node> icfg) {
+        this.problem = problem;
+        this.icfg = icfg;
+        this.zero = problem.zeroValue();
+    }
+
+    /**
+     * Solves the IFDS problem from the entries of the entry methods
+     * of the ICFG, where only the zero fact holds.
+     */
+    public void solve() {
+        icfg.entryMethods().forEach(m -> {
+            Node entry = icfg.getEntryOf(m);
+            propagate(zero, entry, zero);
+        });
+        while (!workList.isEmpty()) {
+            PathEdge<Node, Fact> edge = workList.poll();
+            Node node = edge.node();
+            if (icfg.isCallSite(node)) {
+                processCall(edge);
+            } else if (node.equals(icfg.getExitOf(icfg.getContainingMethodOf(node)))) {
+                processExit(edge);
+            } else {
+                processNormal(edge);
+            }
+        }
+    }
+
+    /**
+     * @return the facts (excluding the zero fact) holding at given node.
+     */
+    public Set<Fact> getFactsAt(Node node) {
+        return results.get(node);
+    }
+
+    private void processCall(PathEdge<Node, Fact> edge) {
+        Node callSite = edge.node();
+        Fact d2 = edge.target();
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(callSite)) {
+            if (outEdge instanceof CallEdge<Node> callEdge) {
+                Node calleeEntry = callEdge.getTarget();
+                Node calleeExit = icfg.getExitOf(icfg.getContainingMethodOf(calleeEntry));
+                for (Fact d3 : transfer(callEdge, d2)) {
+                    Pair<Node, Fact> entryFact = new Pair<>(calleeEntry, d3);
+                    incoming.put(entryFact, new Pair<>(callSite, d2));
+                    propagate(d3, calleeEntry, d3);
+                    // apply the end summaries computed so far
+                    for (Fact d4 : List.copyOf(endSummaries.get(entryFact))) {
+                        applySummary(calleeExit, callSite, d4, edge.source());
+                    }
+                }
+            } else if (outEdge instanceof CallToReturnEdge<Node> callToReturnEdge) {
+                for (Fact d3 : transfer(callToReturnEdge, d2)) {
+                    propagate(edge.source(), callToReturnEdge.getTarget(), d3);
+                }
+            }
+        }
+    }
+
+    private void processExit(PathEdge<Node, Fact> edge) {
+        Node exit = edge.node();
+        Node entry = icfg.getEntryOf(icfg.getContainingMethodOf(exit));
+        Pair<Node, Fact> entryFact = new Pair<>(entry, edge.source());
+        if (endSummaries.put(entryFact, edge.target())) {
+            for (Pair<Node, Fact> callSiteFact : List.copyOf(incoming.get(entryFact))) {
+                for (Fact d1 : List.copyOf(jumpFunctions.get(callSiteFact))) {
+                    applySummary(exit, callSiteFact.first(), edge.target(), d1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Propagates exit fact {@code d4} of a callee to the return sites of
+     * {@code callSite}, whose path edges start with {@code d1}.
+     */
+    private void applySummary(Node exit, Node callSite, Fact d4, Fact d1) {
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(exit)) {
+            if (outEdge instanceof ReturnEdge<Node> returnEdge &&
+                    returnEdge.getCallSite().equals(callSite)) {
+                for (Fact d5 : transfer(returnEdge, d4)) {
+                    propagate(d1, returnEdge.getTarget(), d5);
+                }
+            }
+        }
+    }
+
+    private void processNormal(PathEdge<Node, Fact> edge) {
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(edge.node())) {
+            if (outEdge instanceof NormalEdge<Node> normalEdge) {
+                for (Fact d3 : transfer(normalEdge, edge.target())) {
+                    propagate(edge.source(), normalEdge.getTarget(), d3);
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the flow function of given edge on given fact.
+     * The zero fact always flows to the target of the edge.
+     */
+    private Set<Fact> transfer(ICFGEdge<Node> edge, Fact fact) {
+        Set<Fact> result;
+        if (edge instanceof NormalEdge<Node> e) {
+            result = problem.transferNormalEdge(e, fact);
+        } else if (edge instanceof CallToReturnEdge<Node> e) {
+            result = problem.transferCallToReturnEdge(e, fact);
+        } else if (edge instanceof CallEdge<Node> e) {
+            result = problem.transferCallEdge(e, fact);
+        } else {
+            result = problem.transferReturnEdge((ReturnEdge<Node>) edge, fact);
+        }
+        if (fact.equals(zero) && !result.contains(zero)) {
+            result = Sets.newHybridSet(result);
+            result.add(zero);
+        }
+        return result;
+    }
+
+    private void propagate(Fact d1, Node node, Fact d2) {
+        if (jumpFunctions.put(new Pair<>(node, d2), d1)) {
+            if (!d2.equals(zero)) {
+                results.put(node, d2);
+            }
+            workList.add(new PathEdge<>(d1, node, d2));
+        }
+    }
+
+    /**
+     * Path edge {@code <sp, source> -> <node, target>}.
+     */
+    private record PathEdge<Node, Fact>(Fact source, Node node, Fact target) {
+    }
+}
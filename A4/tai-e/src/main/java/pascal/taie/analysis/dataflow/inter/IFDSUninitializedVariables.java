@@ -0,0 +1,181 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.World;
+import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.StmtResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.NullType;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Set;
+
+/**
+ * Inter-procedural possibly-uninitialized variable analysis, solved as
+ * an IFDS problem by {@link IFDSSolver}.
+ * <p>
+ * A fact is a variable that may be uninitialized. All local variables
+ * except {@code this} and the parameters are uninitialized at the entry
+ * of a method; a variable becomes uninitialized when it is assigned from
+ * an uninitialized variable, and initialized when it is assigned from
+ * initialized ones. Parameters are uninitialized if the corresponding
+ * arguments are, and call results if the returned variables are.
+ * The result of a statement is the variables that may be uninitialized
+ * before the statement.
+ */
+public class IFDSUninitializedVariables extends ProgramAnalysis
+        implements IFDSProblem<Stmt, Var> {
+
+    public static final String ID = "ifds-uninit";
+
+    /**
+     * The zero fact, which is not a variable of any method.
+     */
+    private static final Var ZERO = new Var(null, "<zero>", NullType.NULL, -1);
+
+    private ICFG<JMethod, Stmt> icfg;
+
+    public IFDSUninitializedVariables(AnalysisConfig config) {
+        super(config);
+    }
+
+    @Override
+    public Object analyze() {
+        icfg = World.get().getResult(ICFGBuilder.ID);
+        IFDSSolver<JMethod, Stmt, Var> solver = new IFDSSolver<>(this, icfg);
+        solver.solve();
+        return new Result(solver);
+    }
+
+    @Override
+    public Var zeroValue() {
+        return ZERO;
+    }
+
+    @Override
+    public Set<Var> transferNormalEdge(NormalEdge<Stmt> edge, Var fact) {
+        Stmt stmt = edge.getSource();
+        if (fact == ZERO) {
+            JMethod method = icfg.getContainingMethodOf(stmt);
+            if (stmt == icfg.getEntryOf(method)) {
+                // generate the local variables at method entry
+                IR ir = method.getIR();
+                Set<Var> result = Sets.newHybridSet();
+                result.add(ZERO);
+                for (Var var : ir.getVars()) {
+                    if (var != ir.getThis() && !ir.getParams().contains(var)) {
+                        result.add(var);
+                    }
+                }
+                return result;
+            }
+            return Set.of(ZERO);
+        }
+        Var def = stmt.getDef().orElse(null) instanceof Var var ? var : null;
+        boolean used = isUsedBy(fact, stmt);
+        if (fact == def) {
+            return used ? Set.of(fact) : Set.of();
+        }
+        return used && def != null ? Set.of(fact, def) : Set.of(fact);
+    }
+
+    private static boolean isUsedBy(Var var, Stmt stmt) {
+        for (RValue use : stmt.getUses()) {
+            if (use == var) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<Var> transferCallToReturnEdge(CallToReturnEdge<Stmt> edge, Var fact) {
+        // the call result is killed here, and is generated by
+        // the return edges if the returned variables are uninitialized
+        Invoke callSite = (Invoke) edge.getSource();
+        return fact == callSite.getLValue() ? Set.of() : Set.of(fact);
+    }
+
+    @Override
+    public Set<Var> transferCallEdge(CallEdge<Stmt> edge, Var callSiteFact) {
+        if (callSiteFact == ZERO) {
+            return Set.of(ZERO);
+        }
+        InvokeExp invokeExp = ((Invoke) edge.getSource()).getInvokeExp();
+        IR calleeIR = edge.getCallee().getIR();
+        Set<Var> result = Sets.newHybridSet();
+        if (invokeExp instanceof InvokeInstanceExp instanceExp
+                && instanceExp.getBase() == callSiteFact
+                && calleeIR.getThis() != null) {
+            result.add(calleeIR.getThis());
+        }
+        for (int i = 0; i < invokeExp.getArgCount(); ++i) {
+            if (invokeExp.getArg(i) == callSiteFact) {
+                result.add(calleeIR.getParam(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Set<Var> transferReturnEdge(ReturnEdge<Stmt> edge, Var exitFact) {
+        if (exitFact == ZERO) {
+            return Set.of(ZERO);
+        }
+        Var result = ((Invoke) edge.getCallSite()).getLValue();
+        return result != null && edge.getReturnVars().contains(exitFact) ?
+                Set.of(result) : Set.of();
+    }
+
+    /**
+     * Variables that may be uninitialized before each statement.
+     */
+    private record Result(IFDSSolver<JMethod, Stmt, Var> solver)
+            implements StmtResult<Set<Var>> {
+
+        @Override
+        public boolean isRelevant(Stmt stmt) {
+            return true;
+        }
+
+        @Override
+        public Set<Var> getResult(Stmt stmt) {
+            return solver.getFactsAt(stmt);
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
@@ -46,19 +48,48 @@ import java.util.Map;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
+ * <p>
+ * If option "summary" is true, the values returned by calls are obtained
+ * from the method summaries keyed by argument values (see {@link CPSummaries})
+ * at call nodes, instead of being propagated along return edges. Call edges
+ * still carry the argument values, so the facts reported for a callee are
+ * computed with its parameters bound to the meet of the arguments of all
+ * its call sites, as without summaries.
  */
 public class InterConstantPropagation extends
         AbstractInterDataflowAnalysis<JMethod, Stmt, CPFact> {
 
     public static final String ID = "inter-constprop";
 
+    private static final Logger logger = LogManager.getLogger(InterConstantPropagation.class);
+
     private final ConstantPropagation cp;
 
+    /**
+     * Method summaries, null if the summary-based mode is disabled.
+     */
+    private CPSummaries summaries;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
     }
 
+    @Override
+    protected void initialize() {
+        if (getOptions().getBooleanOrDefault("summary", false)) {
+            summaries = new CPSummaries(cp, icfg);
+        }
+    }
+
+    @Override
+    protected void finish() {
+        if (summaries != null) {
+            logger.info("Analyzed method bodies {} times for summaries",
+                    summaries.getAnalyzedMethods());
+        }
+    }
+
     @Override
     public boolean isForward() {
         return cp.isForward();
@@ -83,6 +114,9 @@ public class InterConstantPropagation extends
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
+        if (summaries != null) {
+            return summaries.transferNode(stmt, in, out);
+        }
         return out.copyFrom(in);
     }
 
@@ -103,6 +137,10 @@ public class InterConstantPropagation extends
         // TODO - finish me
         CPFact result = new CPFact();
         result.copyFrom(out);
+        if (summaries != null) {
+            // the result of the call is given by the summaries
+            return result;
+        }
         Stmt src = edge.getSource();
     if (src.getDef().isPresent()&&src instanceof Invoke invoke) {
         Var var = invoke.getResult();
@@ -147,6 +185,9 @@ public class InterConstantPropagation extends
     {
         // TODO - finish me
         CPFact resultFact = new CPFact();
+        if (summaries != null) {
+            return resultFact;
+        }
         Stmt callSite = edge.getCallSite();
 
         if (callSite instanceof Invoke invoke )
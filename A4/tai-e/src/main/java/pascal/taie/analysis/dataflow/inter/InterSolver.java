@@ -22,19 +22,40 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
-import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
-import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Solver for inter-procedural data-flow analysis.
  * The workload of inter-procedural analysis is heavy, thus we always
  * adopt work-list algorithm for efficiency.
+ * <p>
+ * Nodes are numbered in reverse post-order of the ICFG (including call
+ * and return edges) from the entries of the entry methods. Hence the
+ * nodes of a method are in reverse post-order of its control-flow graph,
+ * and the nodes of a callee typically come between the call site and
+ * the return site that first reach it. The work list contains each node
+ * at most once, and is swept in the order of node numbers: it picks
+ * the next node after the previous one, and starts over from the
+ * smallest node after reaching the end.
+ * <p>
+ * Edge transfer is lazy: when the OUT fact of a node changes, its out
+ * edges are only marked as pending, and they are transferred (once,
+ * no matter how many times their sources changed) when their targets
+ * are picked from the work list.
  */
 class InterSolver<Method, Node, Fact> {
 
@@ -44,7 +65,23 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    /**
+     * Nodes indexed by their numbers.
+     */
+    private List<Node> nodes;
+
+    private Map<Node, Integer> nodeIds;
+
+    /**
+     * In edges whose sources changed since their targets were
+     * last processed, indexed by the numbers of the targets.
+     */
+    private List<Set<ICFGEdge<Node>>> pendingEdges;
+
+    /**
+     * Numbers of the nodes in the work list.
+     */
+    private BitSet workList;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
@@ -60,49 +97,106 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void initialize() {
-        // TODO - finish me
-        Iterator<Method> entryIterator = icfg.entryMethods().iterator();
-        while (entryIterator.hasNext())
-        {
-            Method entry = entryIterator.next();
+        numberNodes();
+        for (Node node : nodes) {
+            result.setOutFact(node, analysis.newInitialFact());
+            result.setInFact(node, analysis.newInitialFact());
+        }
+        icfg.entryMethods().forEach(entry -> {
             Node entryNode = icfg.getEntryOf(entry);
             result.setOutFact(entryNode, analysis.newBoundaryFact(entryNode));
+        });
+        // at the beginning, all nodes are in the work list,
+        // and all edges are pending
+        pendingEdges = new ArrayList<>(nodes.size());
+        workList = new BitSet(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            Set<ICFGEdge<Node>> inEdges = Sets.newHybridSet();
+            inEdges.addAll(icfg.getInEdgesOf(nodes.get(i)));
+            pendingEdges.add(inEdges);
+            workList.set(i);
         }
+    }
 
-        List<Node> nodes = new ArrayList<>();
-        icfg.iterator().forEachRemaining(nodes::add);
-        for (Node node : nodes)
-        {
-            result.setOutFact(node, analysis.newInitialFact());
-            result.setInFact(node, analysis.newInitialFact());
+    /**
+     * Numbers the nodes in the ICFG, see the class comment for the order.
+     */
+    private void numberNodes() {
+        nodes = new ArrayList<>();
+        nodeIds = Maps.newMap();
+        Set<Node> visited = Sets.newSet();
+        List<Node> postOrder = new ArrayList<>();
+        icfg.entryMethods().forEach(entry ->
+                computePostOrder(icfg.getEntryOf(entry), visited, postOrder));
+        Collections.reverse(postOrder);
+        postOrder.forEach(this::addNode);
+        // nodes unreachable from the entry methods come last
+        for (Node node : icfg) {
+            if (!nodeIds.containsKey(node)) {
+                addNode(node);
+            }
         }
     }
 
-    private void doSolve() {
-        // TODO - finish me
-        Set<Node> workSet = new HashSet<>();
-    for (Node node : icfg) {
-        workSet.add(node);
+    private void addNode(Node node) {
+        nodeIds.put(node, nodes.size());
+        nodes.add(node);
     }
 
-    while (!workSet.isEmpty()) {
-        Set<Node> nextWorkSet = new HashSet<>();
-        for (Node node : workSet)
-        {
-            Set<ICFGEdge<Node>> inEdges = icfg.getInEdgesOf(node);
-            for (ICFGEdge<Node> edge : inEdges)
-            {
-                Fact sourceOutFact = result.getOutFact(edge.getSource());
-                Fact edgeFact = analysis.transferEdge(edge, sourceOutFact);
-                analysis.meetInto(edgeFact, result.getInFact(node));
-            }
-            boolean changed = analysis.transferNode(node, result.getInFact(node), result.getOutFact(node));
-            if (changed)
-            {
-                nextWorkSet.addAll(icfg.getSuccsOf(node));
+    /**
+     * Appends the nodes reachable from given node in the ICFG
+     * to {@code postOrder} in DFS post-order.
+     */
+    private void computePostOrder(Node start, Set<Node> visited,
+                                  List<Node> postOrder) {
+        if (!visited.add(start)) {
+            return;
+        }
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        stack.push(start);
+        succs.push(icfg.getSuccsOf(start).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ);
+                    succs.push(icfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.add(stack.pop());
+                succs.pop();
             }
         }
-        workSet = nextWorkSet;
+    }
+
+    private void doSolve() {
+        int cursor = 0;
+        while (!workList.isEmpty()) {
+            // sweep the work list in node order, starting over
+            // from the smallest node after reaching the end
+            int id = workList.nextSetBit(cursor);
+            if (id < 0) {
+                id = workList.nextSetBit(0);
+            }
+            workList.clear(id);
+            cursor = id + 1;
+            Node node = nodes.get(id);
+            Fact in = result.getInFact(node);
+            Set<ICFGEdge<Node>> pending = pendingEdges.get(id);
+            for (ICFGEdge<Node> edge : pending) {
+                Fact sourceOut = result.getOutFact(edge.getSource());
+                analysis.meetInto(analysis.transferEdge(edge, sourceOut), in);
+            }
+            pending.clear();
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                    int target = nodeIds.get(edge.getTarget());
+                    pendingEdges.get(target).add(edge);
+                    workList.set(target);
+                }
+            }
         }
     }
 }
@@ -77,7 +77,14 @@ public abstract class Solver<Node, Fact> {
     }
 
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // Unused
+        result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        result.setInFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
+        for (Node node : cfg.getNodes()) {
+            if (!cfg.isEntry(node)) {
+                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact());
+            }
+        }
     }
 
     protected void initializeBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
@@ -26,6 +26,9 @@ import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 
+import java.util.HashSet;
+import java.util.Set;
+
 class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     WorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
@@ -34,7 +37,19 @@ class WorkListSolver<Node, Fact> extends Solver<Node, Fact> {
 
     @Override
     protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
-        // Unused
+        Set<Node> workSet = new HashSet<>(cfg.getNodes());
+        while (!workSet.isEmpty()) {
+            Node node = workSet.iterator().next();
+            workSet.remove(node);
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, out)) {
+                workSet.addAll(cfg.getSuccsOf(node));
+            }
+        }
     }
 
     @Override
@@ -22,8 +22,9 @@
 
 package pascal.taie.analysis.graph.callgraph;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.ir.IR;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
@@ -31,8 +32,10 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
@@ -40,110 +43,175 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    private static final Logger logger = LogManager.getLogger(CHABuilder.class);
+
+    /**
+     * Progress is logged every time this number of methods become reachable.
+     */
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    /**
+     * Whether resolve the call sites of reachable methods in parallel.
+     */
+    private final boolean parallel;
+
     private ClassHierarchy hierarchy;
 
+    /**
+     * Cache of CHA results of virtual and interface calls.
+     * It is shared by the threads of parallel mode.
+     */
+    private final Map<JClass, Map<Subsignature, Set<JMethod>>> virtualTargets
+            = Maps.newConcurrentMap();
+
+    private int reachableMethods;
+
+    private int processedCallSites;
+
+    private int edges;
+
+    CHABuilder(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
-        return buildCallGraph(World.get().getMainMethod());
+        JMethod entry = World.get().getMainMethod();
+        CallGraph<Invoke, JMethod> callGraph = parallel ?
+                buildCallGraphInParallel(entry) : buildCallGraph(entry);
+        logger.info("CHA finished: {} reachable methods, {} call sites, {} edges",
+                reachableMethods, processedCallSites, edges);
+        return callGraph;
     }
 
+    /**
+     * Builds call graph with a work list of call sites. Call sites are
+     * processed breadth-first, and each call site is resolved exactly
+     * once, when its container becomes reachable.
+     */
     private CallGraph<Invoke, JMethod> buildCallGraph(JMethod entry) {
         DefaultCallGraph callGraph = new DefaultCallGraph();
         callGraph.addEntryMethod(entry);
-        // TODO - finish me
-        Set<JMethod> visitedMethods = new HashSet<>();
-        exploreMethod(entry, callGraph, visitedMethods);
+        Queue<Invoke> workList = new ArrayDeque<>();
+        addReachable(callGraph, entry, workList);
+        while (!workList.isEmpty()) {
+            Invoke callSite = workList.poll();
+            ++processedCallSites;
+            CallKind kind = CallGraphs.getCallKind(callSite);
+            for (JMethod callee : resolve(callSite)) {
+                if (callGraph.addEdge(new Edge<>(kind, callSite, callee))) {
+                    ++edges;
+                }
+                addReachable(callGraph, callee, workList);
+            }
+        }
         return callGraph;
-
     }
-    private void exploreMethod(JMethod method, DefaultCallGraph callGraph, Set<JMethod> visitedMethods) {
-    if (visitedMethods.contains(method)) {
-        return;
+
+    /**
+     * Builds call graph level by level. The call sites of all methods that
+     * became reachable in the previous level (the frontier) are resolved
+     * concurrently on the common fork-join pool; newly reachable callees
+     * are claimed in a concurrent set and form the next frontier, and
+     * edges are collected in a concurrent queue. As DefaultCallGraph is
+     * not thread-safe, the methods and edges of each level are added to
+     * it by the current thread after the level is finished.
+     */
+    private CallGraph<Invoke, JMethod> buildCallGraphInParallel(JMethod entry) {
+        DefaultCallGraph callGraph = new DefaultCallGraph();
+        callGraph.addEntryMethod(entry);
+        Set<JMethod> reachable = ConcurrentHashMap.newKeySet();
+        reachable.add(entry);
+        List<JMethod> frontier = List.of(entry);
+        while (!frontier.isEmpty()) {
+            Queue<Edge<Invoke, JMethod>> edgeSink = new ConcurrentLinkedQueue<>();
+            Queue<JMethod> nextFrontier = new ConcurrentLinkedQueue<>();
+            frontier.parallelStream().forEach(method -> {
+                for (Stmt stmt : method.getIR()) {
+                    if (stmt instanceof Invoke callSite) {
+                        CallKind kind = CallGraphs.getCallKind(callSite);
+                        for (JMethod callee : resolve(callSite)) {
+                            edgeSink.add(new Edge<>(kind, callSite, callee));
+                            if (reachable.add(callee)) {
+                                nextFrontier.add(callee);
+                            }
+                        }
+                    }
+                }
+            });
+            for (JMethod method : frontier) {
+                callGraph.addReachableMethod(method);
+                ++reachableMethods;
+                processedCallSites += callGraph.getCallSitesIn(method).size();
+            }
+            for (Edge<Invoke, JMethod> edge : edgeSink) {
+                if (callGraph.addEdge(edge)) {
+                    ++edges;
+                }
+            }
+            logger.info("CHA progress: {} reachable methods, {} call sites, {} edges",
+                    reachableMethods, processedCallSites, edges);
+            frontier = new ArrayList<>(nextFrontier);
+        }
+        return callGraph;
     }
-    visitedMethods.add(method);
-    callGraph.addReachableMethod(method);
-
-    IR ir = method.getIR();
-    for (Stmt stmt : ir) {
-        if (stmt instanceof Invoke invoke) {
-            Set<JMethod> callees = resolve(invoke);
-            for (JMethod callee : callees) {
-                callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(invoke), invoke, callee));
-                exploreMethod(callee, callGraph, visitedMethods);
+
+    /**
+     * Adds a reachable method, and its call sites to the work list
+     * if the method is newly reachable.
+     */
+    private void addReachable(DefaultCallGraph callGraph, JMethod method,
+                              Queue<Invoke> workList) {
+        if (callGraph.addReachableMethod(method)) {
+            ++reachableMethods;
+            if (reachableMethods % PROGRESS_INTERVAL == 0) {
+                logger.info("CHA progress: {} reachable methods, {} call sites, {} edges",
+                        reachableMethods, processedCallSites, edges);
             }
+            workList.addAll(callGraph.getCallSitesIn(method));
         }
     }
-}
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
     private Set<JMethod> resolve(Invoke callSite)
     {
-        // TODO - finish me
-        Set<JMethod> result = new HashSet<>();
         MethodRef methodRef = callSite.getMethodRef();
         Subsignature subsignature = methodRef.getSubsignature();
         JClass declaringClass = methodRef.getDeclaringClass();
-
-    if (CallGraphs.getCallKind(callSite) == CallKind.STATIC || CallGraphs.getCallKind(callSite) == CallKind.SPECIAL)
-    {
-        JMethod method = dispatch(declaringClass, subsignature);
-        if (method != null)
+        CallKind kind = CallGraphs.getCallKind(callSite);
+        if (kind == CallKind.STATIC || kind == CallKind.SPECIAL)
         {
-            result.add(method);
+            JMethod method = hierarchy.dispatch(declaringClass, subsignature);
+            return method != null ? Set.of(method) : Set.of();
         }
-    }
-    else if(CallGraphs.getCallKind(callSite) == CallKind.VIRTUAL || CallGraphs.getCallKind(callSite) == CallKind.INTERFACE)
-    {
-        Queue<JClass> worklist = new ConcurrentLinkedQueue<>();
-        worklist.add(declaringClass);
-        while(!worklist.isEmpty())
+        else if (kind == CallKind.VIRTUAL || kind == CallKind.INTERFACE)
         {
-            JClass jclass = worklist.remove();
-            JMethod method = dispatch(jclass, subsignature);
-            if(method != null)
-            {
-                result.add(method);
-            }
-            if(jclass.isInterface())
-            {
-                worklist.addAll(hierarchy.getDirectSubinterfacesOf(jclass));
-                worklist.addAll(hierarchy.getDirectImplementorsOf(jclass));
-            }
-            else
-            {
-                worklist.addAll(hierarchy.getDirectSubclassesOf(jclass));
-            }
+            // call sites on the same method reference share the result
+            return virtualTargets
+                    .computeIfAbsent(declaringClass, c -> Maps.newConcurrentMap())
+                    .computeIfAbsent(subsignature, s -> resolveVirtual(declaringClass, s));
+        }
+        else
+        {
+            assert false : "Unexpected call kind: " + kind;
+            return Set.of();
         }
     }
-    else
-    {
-        assert false : "Unexpected call kind: " + CallGraphs.getCallKind(callSite);
-    }
-        return result;
-
-    }
-
 
     /**
-     * Looks up the target method based on given class and method subsignature.
-     *
-     * @return the dispatched target method, or null if no satisfying method
-     * can be found.
+     * @return the methods dispatched on all subtypes of given class.
      */
-    private JMethod dispatch(JClass jclass, Subsignature subsignature)
-    {
-        // TODO - finish me
-        while (jclass != null)
-        {
-            JMethod method = jclass.getDeclaredMethod(subsignature);
-            if (method != null && !method.isAbstract())
-            {
-                return method;
+    private Set<JMethod> resolveVirtual(JClass declaringClass, Subsignature subsignature) {
+        Set<JMethod> result = new HashSet<>();
+        for (JClass subtype : hierarchy.getAllSubtypesOf(declaringClass)) {
+            JMethod method = hierarchy.dispatch(subtype, subsignature);
+            if (method != null) {
+                result.add(method);
             }
-            jclass = jclass.getSuperClass();
         }
-        return null;
+        return Collections.unmodifiableSet(result);
     }
 }
@@ -0,0 +1,290 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.StringReps;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Binary on-disk cache of call graphs.
+ * <p>
+ * A cached call graph is stored in a file whose name is a hash of
+ * the input class path, the main class, and the call graph algorithm,
+ * so that repeated runs on the same inputs can load the call graph
+ * instead of building it again. In the file, methods are identified
+ * by their signatures, and call sites by their container methods and
+ * indexes in the IR of the containers.
+ */
+final class CallGraphCache {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphCache.class);
+
+    private static final int MAGIC = 0x54434743; // "TCGC"
+
+    private static final int VERSION = 1;
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    /**
+     * Directory of the JRE libraries used when the JVM is not prepended.
+     */
+    private static final String JREs = "java-benchmarks/JREs";
+
+    private final File file;
+
+    CallGraphCache(String algorithm) {
+        File dir = new File(Configs.getOutputDir(), "cg-cache");
+        file = new File(dir, computeKey(algorithm) + ".bin");
+    }
+
+    /**
+     * @return the cached call graph, or null if the call graph is not
+     * cached or the cache cannot be matched with current program.
+     */
+    @Nullable
+    CallGraph<Invoke, JMethod> load() {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Ignore call graph cache {} of unknown format", file);
+                return null;
+            }
+            ClassHierarchy hierarchy = World.get().getClassHierarchy();
+            JMethod[] methods = new JMethod[in.readInt()];
+            for (int i = 0; i < methods.length; ++i) {
+                String signature = in.readUTF();
+                methods[i] = getMethod(hierarchy, signature);
+                if (methods[i] == null) {
+                    logger.warn("Ignore stale call graph cache {}: cannot find {}",
+                            file, signature);
+                    return null;
+                }
+            }
+            DefaultCallGraph callGraph = new DefaultCallGraph();
+            for (int i = in.readInt(); i > 0; --i) {
+                callGraph.addEntryMethod(methods[in.readInt()]);
+            }
+            for (JMethod method : methods) {
+                callGraph.addReachableMethod(method);
+            }
+            for (int i = in.readInt(); i > 0; --i) {
+                JMethod caller = methods[in.readInt()];
+                int index = in.readInt();
+                CallKind kind = CALL_KINDS[in.readByte()];
+                JMethod callee = methods[in.readInt()];
+                List<Stmt> stmts = caller.getIR().getStmts();
+                if (index >= stmts.size() ||
+                        !(stmts.get(index) instanceof Invoke callSite)) {
+                    logger.warn("Ignore stale call graph cache {}: no call site {} in {}",
+                            file, index, caller);
+                    return null;
+                }
+                callGraph.addEdge(new Edge<>(kind, callSite, callee));
+            }
+            logger.info("Loaded call graph from cache {}", file);
+            return callGraph;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load call graph cache {}", file, e);
+            return null;
+        }
+    }
+
+    private static @Nullable JMethod getMethod(
+            ClassHierarchy hierarchy, String signature) {
+        JClass jclass = hierarchy.getClass(StringReps.getClassNameOf(signature));
+        if (jclass == null) {
+            return null;
+        }
+        return jclass.getDeclaredMethod(
+                Subsignature.get(StringReps.getSubsignatureOf(signature)));
+    }
+
+    /**
+     * Stores the given call graph to the cache.
+     */
+    void store(CallGraph<Invoke, JMethod> callGraph) {
+        JMethod[] methods = callGraph.reachableMethods().toArray(JMethod[]::new);
+        Map<JMethod, Integer> methodIds = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            methodIds.put(methods[i], i);
+        }
+        Path tempFile = null;
+        try {
+            Path dir = Files.createDirectories(file.getParentFile().toPath());
+            // write to a temporary file first, and then move it to the
+            // cache file, so that other runs never see a partial cache
+            tempFile = Files.createTempFile(dir, file.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(methods.length);
+                for (JMethod method : methods) {
+                    out.writeUTF(method.getSignature());
+                }
+                List<JMethod> entries = callGraph.entryMethods().toList();
+                out.writeInt(entries.size());
+                for (JMethod entry : entries) {
+                    out.writeInt(methodIds.get(entry));
+                }
+                out.writeInt(callGraph.getNumberOfEdges());
+                for (Edge<Invoke, JMethod> edge :
+                        (Iterable<Edge<Invoke, JMethod>>) callGraph.edges()::iterator) {
+                    Invoke callSite = edge.getCallSite();
+                    out.writeInt(methodIds.get(callSite.getContainer()));
+                    out.writeInt(callSite.getIndex());
+                    out.writeByte(edge.getKind().ordinal());
+                    out.writeInt(methodIds.get(edge.getCallee()));
+                }
+            }
+            Files.move(tempFile, file.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Stored call graph to cache {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to store call graph cache {}", file, e);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a hash of the contents of the class path, the main class,
+     * the JVM settings, the JRE library and the call graph algorithm.
+     */
+    private static String computeKey(String algorithm) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Options options = World.get().getOptions();
+            update(digest, options.getMainClass());
+            update(digest, options.getJavaVersion() + ":" + options.isPrependJVM());
+            update(digest, algorithm);
+            if (options.getClassPath() != null) {
+                for (String entry : options.getClassPath().split(File.pathSeparator)) {
+                    updateWithPath(digest, Path.of(entry));
+                }
+            }
+            if (options.isPrependJVM()) {
+                // the classes of the running JVM are analyzed
+                update(digest, System.getProperty("java.home"));
+                update(digest, System.getProperty("java.runtime.version"));
+            } else {
+                // the JRE jars are added to the class path by the world
+                // builder, see AbstractWorldBuilder.getClassPath()
+                for (Path jar : getJREJars(options.getJavaVersion())) {
+                    updateWithPath(digest, jar);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not supported", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read class path", e);
+        }
+    }
+
+    /**
+     * @return the jars of the JRE library of given Java version.
+     */
+    private static List<Path> getJREJars(int javaVersion) throws IOException {
+        Path jreDir = Path.of(JREs, "jre1." + javaVersion);
+        try (Stream<Path> paths = Files.walk(jreDir)) {
+            return paths.filter(p -> p.toString().endsWith(".jar"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Updates the digest with a file, or with the relative paths and
+     * contents of all files under a directory.
+     */
+    private static void updateWithPath(MessageDigest digest, Path path)
+            throws IOException {
+        update(digest, path.toString());
+        if (Files.isRegularFile(path)) {
+            updateWithFile(digest, path);
+        } else if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path p : (Iterable<Path>) files
+                        .filter(Files::isRegularFile).sorted()::iterator) {
+                    update(digest, path.relativize(p).toString());
+                    updateWithFile(digest, p);
+                }
+            }
+        }
+    }
+
+    private static void updateWithFile(MessageDigest digest, Path file)
+            throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.config.Configs;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.exp.InvokeDynamic;
@@ -32,13 +33,20 @@ import pascal.taie.ir.exp.InvokeInterface;
 import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
+import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
 import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -73,6 +81,30 @@ public final class CallGraphs {
         return getCallKind(invoke.getInvokeExp());
     }
 
+    /**
+     * Resolves the callee of a call site with given receiver type.
+     * Dispatch results are cached by the class hierarchy,
+     * see {@link ClassHierarchy#dispatch(JClass, Subsignature)}.
+     *
+     * @param type     type of the receiver object, ignored for static
+     *                 and special calls
+     * @param callSite the call site
+     * @return the resolved callee, or null if it cannot be resolved.
+     */
+    public static @Nullable
+    JMethod resolveCallee(@Nullable Type type, Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        return switch (getCallKind(callSite)) {
+            case VIRTUAL, INTERFACE -> type instanceof ClassType classType ?
+                    hierarchy.dispatch(classType.getJClass(), methodRef.getSubsignature()) :
+                    null;
+            case SPECIAL, STATIC -> hierarchy.dispatch(
+                    methodRef.getDeclaringClass(), methodRef.getSubsignature());
+            default -> null;
+        };
+    }
+
     /**
      * Dumps call graph to dot file.
      */
@@ -0,0 +1,402 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable call graph in compressed sparse row (CSR) form.
+ * <p>
+ * Reachable methods and call sites are given dense ids, and call edges
+ * are stored in primitive int arrays instead of {@link Edge} objects and
+ * multi-maps as in {@link AbstractCallGraph}. The call sites of each method
+ * occupy a contiguous id range (sorted by their indexes in the IR), and so
+ * do the out edges of each call site and the in edges of each method.
+ * The {@link Set}s, {@link Stream}s and {@link Edge}s returned by this
+ * class are views (or created on demand) on top of the arrays.
+ */
+public final class CompactCallGraph implements CallGraph<Invoke, JMethod> {
+
+    private static final CallKind[] CALL_KINDS = CallKind.values();
+
+    /**
+     * Reachable methods, indexed by method id.
+     */
+    private final JMethod[] methods;
+
+    private final Map<JMethod, Integer> methodIds;
+
+    private final int[] entryMethods;
+
+    /**
+     * Call sites, indexed by call site id.
+     */
+    private final Invoke[] callSites;
+
+    /**
+     * Call sites in method m are in [callSiteStart[m], callSiteStart[m + 1]).
+     */
+    private final int[] callSiteStart;
+
+    /**
+     * Out edges of call site c are in [edgeStart[c], edgeStart[c + 1]).
+     */
+    private final int[] edgeStart;
+
+    private final int[] edgeCallSites;
+
+    private final int[] edgeCallees;
+
+    private final byte[] edgeKinds;
+
+    /**
+     * In edges of method m are inEdges[inEdgeStart[m]..inEdgeStart[m + 1]).
+     */
+    private final int[] inEdgeStart;
+
+    private final int[] inEdges;
+
+    /**
+     * Creates a compact copy of the given call graph.
+     * All callees in the call graph must be reachable methods.
+     */
+    public CompactCallGraph(CallGraph<Invoke, JMethod> callGraph) {
+        // assign method ids
+        methods = callGraph.reachableMethods().toArray(JMethod[]::new);
+        methodIds = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            methodIds.put(methods[i], i);
+        }
+        entryMethods = callGraph.entryMethods()
+                .mapToInt(this::getMethodId)
+                .toArray();
+        // assign call site ids
+        callSiteStart = new int[methods.length + 1];
+        List<Invoke> allCallSites = Arrays.stream(methods)
+                .flatMap(m -> callGraph.callSitesIn(m)
+                        .sorted(Comparator.comparing(Invoke::getIndex)))
+                .toList();
+        callSites = allCallSites.toArray(new Invoke[0]);
+        for (int m = 0, c = 0; m < methods.length; ++m) {
+            callSiteStart[m] = c;
+            c += callGraph.getCallSitesIn(methods[m]).size();
+        }
+        callSiteStart[methods.length] = callSites.length;
+        // build out edges
+        int nEdges = callGraph.getNumberOfEdges();
+        edgeStart = new int[callSites.length + 1];
+        edgeCallSites = new int[nEdges];
+        edgeCallees = new int[nEdges];
+        edgeKinds = new byte[nEdges];
+        int[] inDegrees = new int[methods.length];
+        int e = 0;
+        for (int c = 0; c < callSites.length; ++c) {
+            edgeStart[c] = e;
+            for (Edge<Invoke, JMethod> edge :
+                    (Iterable<Edge<Invoke, JMethod>>) callGraph.edgesOutOf(callSites[c])::iterator) {
+                int callee = getMethodId(edge.getCallee());
+                edgeCallSites[e] = c;
+                edgeCallees[e] = callee;
+                edgeKinds[e] = (byte) edge.getKind().ordinal();
+                ++inDegrees[callee];
+                ++e;
+            }
+        }
+        edgeStart[callSites.length] = e;
+        if (e != nEdges) {
+            throw new IllegalArgumentException(
+                    "Some call edges are not out of call sites in reachable methods");
+        }
+        // build in edges by counting sort on callees
+        inEdgeStart = new int[methods.length + 1];
+        for (int m = 0; m < methods.length; ++m) {
+            inEdgeStart[m + 1] = inEdgeStart[m] + inDegrees[m];
+        }
+        inEdges = new int[nEdges];
+        int[] next = Arrays.copyOf(inEdgeStart, methods.length);
+        for (int i = 0; i < nEdges; ++i) {
+            inEdges[next[edgeCallees[i]]++] = i;
+        }
+    }
+
+    private int getMethodId(JMethod method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            throw new IllegalArgumentException(method + " is not reachable");
+        }
+        return id;
+    }
+
+    /**
+     * @return id of the given call site, or -1 if it is not in this call graph.
+     */
+    private int getCallSiteId(Invoke callSite) {
+        Integer m = methodIds.get(callSite.getContainer());
+        if (m == null) {
+            return -1;
+        }
+        // call sites of each method are sorted by their indexes
+        int lo = callSiteStart[m], hi = callSiteStart[m + 1] - 1;
+        int index = callSite.getIndex();
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int midIndex = callSites[mid].getIndex();
+            if (midIndex < index) {
+                lo = mid + 1;
+            } else if (midIndex > index) {
+                hi = mid - 1;
+            } else {
+                return callSites[mid] == callSite ? mid : -1;
+            }
+        }
+        return -1;
+    }
+
+    private Edge<Invoke, JMethod> getEdge(int e) {
+        return new Edge<>(CALL_KINDS[edgeKinds[e]],
+                callSites[edgeCallSites[e]], methods[edgeCallees[e]]);
+    }
+
+    @Override
+    public Set<Invoke> getCallersOf(JMethod callee) {
+        Integer m = methodIds.get(callee);
+        if (m == null) {
+            return Set.of();
+        }
+        return new RangeView<>(inEdgeStart[m], inEdgeStart[m + 1],
+                i -> callSites[edgeCallSites[inEdges[i]]]);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        int c = getCallSiteId(callSite);
+        if (c == -1) {
+            return Set.of();
+        }
+        return new RangeView<>(edgeStart[c], edgeStart[c + 1],
+                e -> methods[edgeCallees[e]]);
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOfM(JMethod caller) {
+        return getSuccsOf(caller);
+    }
+
+    @Override
+    public JMethod getContainerOf(Invoke callSite) {
+        return callSite.getContainer();
+    }
+
+    @Override
+    public Set<Invoke> getCallSitesIn(JMethod method) {
+        Integer m = methodIds.get(method);
+        if (m == null) {
+            return Set.of();
+        }
+        return new RangeView<>(callSiteStart[m], callSiteStart[m + 1],
+                c -> callSites[c]);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        int c = getCallSiteId(callSite);
+        if (c == -1) {
+            return Stream.of();
+        }
+        return IntStream.range(edgeStart[c], edgeStart[c + 1])
+                .mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesInTo(JMethod method) {
+        Integer m = methodIds.get(method);
+        if (m == null) {
+            return Stream.of();
+        }
+        return IntStream.range(inEdgeStart[m], inEdgeStart[m + 1])
+                .mapToObj(i -> getEdge(inEdges[i]));
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edges() {
+        return IntStream.range(0, edgeCallees.length).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCallees.length;
+    }
+
+    @Override
+    public Stream<JMethod> entryMethods() {
+        return Arrays.stream(entryMethods).mapToObj(m -> methods[m]);
+    }
+
+    @Override
+    public Stream<JMethod> reachableMethods() {
+        return Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(JMethod method) {
+        return methodIds.containsKey(method);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(JMethod node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(JMethod source, JMethod target) {
+        Integer s = methodIds.get(source), t = methodIds.get(target);
+        if (s == null || t == null) {
+            return false;
+        }
+        for (int e = edgeStart[callSiteStart[s]];
+             e < edgeStart[callSiteStart[s + 1]]; ++e) {
+            if (edgeCallees[e] == t) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getInEdgesOf(JMethod method) {
+        return edgesInTo(method)
+                .map(e -> new MethodEdge<>(
+                        getContainerOf(e.getCallSite()), method, e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<MethodEdge<Invoke, JMethod>> getOutEdgesOf(JMethod method) {
+        return callSitesIn(method)
+                .flatMap(this::edgesOutOf)
+                .map(e -> new MethodEdge<>(method, e.getCallee(), e.getCallSite()))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getPredsOf(JMethod node) {
+        return getCallersOf(node)
+                .stream()
+                .map(this::getContainerOf)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getSuccsOf(JMethod node) {
+        Integer m = methodIds.get(node);
+        if (m == null) {
+            return Set.of();
+        }
+        return IntStream.range(edgeStart[callSiteStart[m]], edgeStart[callSiteStart[m + 1]])
+                .mapToObj(e -> methods[edgeCallees[e]])
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public Set<JMethod> getNodes() {
+        return new RangeView<>(0, methods.length, m -> methods[m]);
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public Set<JMethod> getResult(Stmt stmt) {
+        return getCalleesOf((Invoke) stmt);
+    }
+
+    /**
+     * Unmodifiable set view of the elements mapped from
+     * a range of positions in the arrays.
+     */
+    private static class RangeView<E> extends AbstractSet<E> {
+
+        private final int from;
+
+        private final int to;
+
+        private final IntFunction<E> getter;
+
+        private RangeView(int from, int to, IntFunction<E> getter) {
+            this.from = from;
+            this.to = to;
+            this.getter = getter;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+
+                private int next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return getter.apply(next++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.ir.exp.NewInstance;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Implementation of the RTA (Rapid Type Analysis) algorithm.
+ * <p>
+ * Like CHA, but virtual and interface calls are only dispatched on the
+ * classes instantiated by {@link New} statements in reachable methods.
+ * When a class becomes instantiated, the virtual call sites reached so far
+ * whose declaring classes are supertypes of the class are dispatched on it.
+ * Objects created implicitly, e.g., by the JVM or by native code, are not
+ * taken into account.
+ */
+class RTABuilder implements CGBuilder<Invoke, JMethod> {
+
+    private static final Logger logger = LogManager.getLogger(RTABuilder.class);
+
+    private ClassHierarchy hierarchy;
+
+    private DefaultCallGraph callGraph;
+
+    /**
+     * Work list of reachable methods to be processed.
+     */
+    private Queue<JMethod> workList;
+
+    /**
+     * Classes instantiated in reachable methods.
+     */
+    private Set<JClass> instantiatedClasses;
+
+    /**
+     * Reached virtual and interface call sites, keyed by
+     * the declaring classes of their method references.
+     */
+    private MultiMap<JClass, Invoke> virtualCallSites;
+
+    @Override
+    public CallGraph<Invoke, JMethod> build() {
+        hierarchy = World.get().getClassHierarchy();
+        callGraph = new DefaultCallGraph();
+        workList = new ArrayDeque<>();
+        instantiatedClasses = Sets.newSet();
+        virtualCallSites = Maps.newMultiMap();
+        JMethod entry = World.get().getMainMethod();
+        callGraph.addEntryMethod(entry);
+        addReachable(entry);
+        while (!workList.isEmpty()) {
+            processMethod(workList.poll());
+        }
+        logger.info("RTA finished: {} reachable methods, {} instantiated classes, {} edges",
+                callGraph.getNumberOfMethods(), instantiatedClasses.size(),
+                callGraph.getNumberOfEdges());
+        return callGraph;
+    }
+
+    private void addReachable(JMethod method) {
+        if (callGraph.addReachableMethod(method)) {
+            workList.add(method);
+        }
+    }
+
+    private void addEdge(Invoke callSite, JMethod callee) {
+        callGraph.addEdge(new Edge<>(
+                CallGraphs.getCallKind(callSite), callSite, callee));
+        addReachable(callee);
+    }
+
+    /**
+     * Processes the instantiations and call sites of a reachable method.
+     */
+    private void processMethod(JMethod method) {
+        for (Stmt stmt : method.getIR()) {
+            if (stmt instanceof New newStmt
+                    && newStmt.getRValue() instanceof NewInstance newInstance) {
+                // the class is null if it is absent from the class path
+                JClass jclass = newInstance.getType().getJClass();
+                if (jclass != null) {
+                    addInstantiatedClass(jclass);
+                }
+            } else if (stmt instanceof Invoke callSite) {
+                processCallSite(callSite);
+            }
+        }
+    }
+
+    private void processCallSite(Invoke callSite) {
+        MethodRef methodRef = callSite.getMethodRef();
+        JClass declaringClass = methodRef.getDeclaringClass();
+        switch (CallGraphs.getCallKind(callSite)) {
+            case STATIC, SPECIAL -> {
+                JMethod callee = CallGraphs.resolveCallee(null, callSite);
+                if (callee != null) {
+                    addEdge(callSite, callee);
+                }
+            }
+            case VIRTUAL, INTERFACE -> {
+                virtualCallSites.put(declaringClass, callSite);
+                // iterate the smaller one of the instantiated classes
+                // and the subtypes of the declaring class
+                Collection<JClass> subtypes =
+                        hierarchy.getAllConcreteSubtypesOf(declaringClass);
+                if (instantiatedClasses.size() < subtypes.size()) {
+                    for (JClass jclass : instantiatedClasses) {
+                        if (hierarchy.isSubclass(declaringClass, jclass)) {
+                            dispatch(callSite, jclass);
+                        }
+                    }
+                } else {
+                    for (JClass subtype : subtypes) {
+                        if (instantiatedClasses.contains(subtype)) {
+                            dispatch(callSite, subtype);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a class as instantiated, and dispatches the reached virtual
+     * call sites that may have receiver objects of the class.
+     */
+    private void addInstantiatedClass(JClass jclass) {
+        if (instantiatedClasses.add(jclass)) {
+            for (JClass supertype : getAllSupertypesOf(jclass)) {
+                for (Invoke callSite : virtualCallSites.get(supertype)) {
+                    dispatch(callSite, jclass);
+                }
+            }
+        }
+    }
+
+    private void dispatch(Invoke callSite, JClass receiverClass) {
+        JMethod callee = CallGraphs.resolveCallee(
+                receiverClass.getType(), callSite);
+        if (callee != null) {
+            addEdge(callSite, callee);
+        }
+    }
+
+    /**
+     * @return given class, its superclasses and all interfaces
+     * they implement (directly or indirectly).
+     */
+    private static Set<JClass> getAllSupertypesOf(JClass jclass) {
+        Set<JClass> supertypes = Sets.newHybridSet();
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (supertypes.add(c)) {
+                if (c.getSuperClass() != null) {
+                    queue.add(c.getSuperClass());
+                }
+                queue.addAll(c.getInterfaces());
+            }
+        }
+        return supertypes;
+    }
+}
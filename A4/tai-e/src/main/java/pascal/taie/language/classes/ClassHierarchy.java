@@ -75,6 +75,36 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return all subtypes of given class or interface, including itself,
+     * i.e., its subclasses, or its subinterfaces and their implementors
+     * (and their subclasses). The result is computed once per class
+     * from a precomputed subtype index of the hierarchy.
+     */
+    Collection<JClass> getAllSubtypesOf(JClass jclass);
+
+    /**
+     * @return all non-abstract classes that are subtypes of given class
+     * or interface, including itself.
+     */
+    Collection<JClass> getAllConcreteSubtypesOf(JClass jclass);
+
+    /**
+     * @return true if {@code subclass} is {@code superclass} or its subclass,
+     * subinterface or implementor (directly or indirectly), otherwise false.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * Looks up the non-abstract method with given subsignature declared
+     * in given class or its superclasses. The results are cached, so that
+     * repeated dispatch on the same class and subsignature is cheap.
+     *
+     * @return the dispatched method, or null if no such method exists.
+     */
+    @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -28,12 +28,18 @@ import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.util.AnalysisException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static pascal.taie.util.collection.Maps.newConcurrentMap;
 import static pascal.taie.util.collection.Maps.newMap;
 import static pascal.taie.util.collection.Maps.newSmallMap;
 import static pascal.taie.util.collection.Sets.newHybridSet;
@@ -65,6 +71,23 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Cache of {@link #getAllSubtypesOf(JClass)}.
+     */
+    private final Map<JClass, Set<JClass>> allSubtypes = newConcurrentMap();
+
+    /**
+     * Index of the subtype relation, built on demand.
+     */
+    private volatile SubtypeIndex subtypeIndex;
+
+    /**
+     * Cache of {@link #dispatch(JClass, Subsignature)}. Absent dispatch
+     * results are kept as empty optionals.
+     */
+    private final Map<JClass, Map<Subsignature, Optional<JMethod>>> dispatchTable
+            = newConcurrentMap();
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -97,6 +120,10 @@ public class ClassHierarchyImpl implements ClassHierarchy {
 
     @Override
     public void addClass(JClass jclass) {
+        // the new class may change the cached subtypes and dispatch results
+        subtypeIndex = null;
+        allSubtypes.clear();
+        dispatchTable.clear();
         // Add direct subinterface
         if (jclass.isInterface()) {
             jclass.getInterfaces().forEach(iface ->
@@ -160,6 +187,77 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public Collection<JClass> getAllSubtypesOf(JClass jclass) {
+        Set<JClass> subtypes = allSubtypes.get(jclass);
+        if (subtypes == null) {
+            subtypes = computeAllSubtypes(jclass);
+            allSubtypes.put(jclass, subtypes);
+        }
+        return subtypes;
+    }
+
+    private Set<JClass> computeAllSubtypes(JClass jclass) {
+        Set<JClass> subtypes = new LinkedHashSet<>();
+        getSubtypeIndex().collectSubtypes(jclass, c -> true, subtypes);
+        return Collections.unmodifiableSet(subtypes);
+    }
+
+    @Override
+    public Collection<JClass> getAllConcreteSubtypesOf(JClass jclass) {
+        List<JClass> subtypes = new ArrayList<>();
+        getSubtypeIndex().collectSubtypes(jclass,
+                c -> !c.isInterface() && !c.isAbstract(), subtypes);
+        return subtypes;
+    }
+
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        return getSubtypeIndex().isSubtype(superclass, subclass);
+    }
+
+    private SubtypeIndex getSubtypeIndex() {
+        SubtypeIndex index = subtypeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = subtypeIndex;
+                if (index == null) {
+                    index = new SubtypeIndex(this);
+                    subtypeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public @Nullable
+    JMethod dispatch(JClass jclass, Subsignature subsignature) {
+        Map<Subsignature, Optional<JMethod>> table = dispatchTable
+                .computeIfAbsent(jclass, c -> newConcurrentMap());
+        Optional<JMethod> method = table.get(subsignature);
+        if (method == null) {
+            method = Optional.ofNullable(lookupConcreteMethod(jclass, subsignature));
+            table.put(subsignature, method);
+        }
+        return method.orElse(null);
+    }
+
+    /**
+     * @return the non-abstract method with given subsignature declared
+     * in given class or its superclasses, or null if no such method exists.
+     */
+    private static @Nullable
+    JMethod lookupConcreteMethod(JClass jclass, Subsignature subsignature) {
+        for (JClass c = jclass; c != null; c = c.getSuperClass()) {
+            JMethod method = c.getDeclaredMethod(subsignature);
+            if (method != null && !method.isAbstract()) {
+                return method;
+            }
+        }
+        return null;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
@@ -0,0 +1,249 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static pascal.taie.util.collection.Maps.newMap;
+
+/**
+ * Precomputed subtype relation of a class hierarchy.
+ * <p>
+ * Classes (excluding interfaces) are numbered in DFS pre-order of the
+ * class inheritance forest, so that the subclasses of each class occupy
+ * the interval [id, subtreeEnd) of the numbering. For each interface,
+ * the classes implementing it (directly or indirectly) are kept in a
+ * bitset over the class numbering, and its subinterfaces in a bitset
+ * over the interface numbering. Subtype checks are therefore O(1),
+ * and subtype enumeration is O(answer).
+ * <p>
+ * The index is immutable, so it has to be rebuilt when the hierarchy
+ * is changed.
+ */
+class SubtypeIndex {
+
+    private final Map<JClass, Integer> classIds;
+
+    /**
+     * Classes in DFS pre-order.
+     */
+    private final JClass[] classes;
+
+    /**
+     * Subclasses of classes[i] are classes[i..subtreeEnd[i]).
+     */
+    private final int[] subtreeEnd;
+
+    private final Map<JClass, Integer> interfaceIds;
+
+    private final JClass[] interfaces;
+
+    /**
+     * Classes implementing interfaces[i], directly or indirectly.
+     */
+    private final BitSet[] implementors;
+
+    /**
+     * Interfaces extending interfaces[i], directly or indirectly,
+     * including interfaces[i] itself.
+     */
+    private final BitSet[] subinterfaces;
+
+    SubtypeIndex(ClassHierarchy hierarchy) {
+        List<JClass> allClasses = new ArrayList<>();
+        List<JClass> allInterfaces = new ArrayList<>();
+        hierarchy.allClasses().forEach(c ->
+                (c.isInterface() ? allInterfaces : allClasses).add(c));
+        // number interfaces
+        interfaces = allInterfaces.toArray(new JClass[0]);
+        interfaceIds = newMap(interfaces.length);
+        for (int i = 0; i < interfaces.length; ++i) {
+            interfaceIds.put(interfaces[i], i);
+        }
+        // number classes by DFS over the class inheritance forest
+        classes = new JClass[allClasses.size()];
+        subtreeEnd = new int[classes.length];
+        classIds = newMap(classes.length);
+        Set<JClass> knownClasses = new HashSet<>(allClasses);
+        int next = 0;
+        for (JClass c : allClasses) {
+            if (!knownClasses.contains(c.getSuperClass())) {
+                next = numberSubtree(hierarchy, knownClasses, c, next);
+            }
+        }
+        // compute superinterfaces (including itself) of each interface
+        BitSet[] superinterfaces = new BitSet[interfaces.length];
+        for (int i = 0; i < interfaces.length; ++i) {
+            superinterfaces[i] = computeSuperinterfaces(interfaces[i]);
+        }
+        subinterfaces = new BitSet[interfaces.length];
+        implementors = new BitSet[interfaces.length];
+        for (int i = 0; i < interfaces.length; ++i) {
+            subinterfaces[i] = new BitSet();
+            implementors[i] = new BitSet();
+        }
+        for (int i = 0; i < interfaces.length; ++i) {
+            for (int s = superinterfaces[i].nextSetBit(0); s >= 0;
+                 s = superinterfaces[i].nextSetBit(s + 1)) {
+                subinterfaces[s].set(i);
+            }
+        }
+        // a class implements the superinterfaces of its direct interfaces,
+        // and so do all its subclasses
+        for (int c = 0; c < next; ++c) {
+            for (JClass iface : classes[c].getInterfaces()) {
+                Integer i = interfaceIds.get(iface);
+                if (i != null) {
+                    BitSet supers = superinterfaces[i];
+                    for (int s = supers.nextSetBit(0); s >= 0;
+                         s = supers.nextSetBit(s + 1)) {
+                        implementors[s].set(c, subtreeEnd[c]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Numbers the classes in the subtree rooted at given class.
+     *
+     * @return the next available number.
+     */
+    private int numberSubtree(ClassHierarchy hierarchy, Set<JClass> knownClasses,
+                              JClass root, int next) {
+        // iterative DFS, a stack element is a class and the iterator
+        // of its unvisited subclasses
+        Deque<Iterator<JClass>> stack = new ArrayDeque<>();
+        Deque<Integer> ids = new ArrayDeque<>();
+        if (classIds.putIfAbsent(root, next) != null) {
+            return next;
+        }
+        classes[next] = root;
+        ids.push(next++);
+        stack.push(hierarchy.getDirectSubclassesOf(root).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<JClass> subclasses = stack.peek();
+            if (subclasses.hasNext()) {
+                JClass subclass = subclasses.next();
+                if (knownClasses.contains(subclass) &&
+                        classIds.putIfAbsent(subclass, next) == null) {
+                    classes[next] = subclass;
+                    ids.push(next++);
+                    stack.push(hierarchy.getDirectSubclassesOf(subclass).iterator());
+                }
+            } else {
+                stack.pop();
+                subtreeEnd[ids.pop()] = next;
+            }
+        }
+        return next;
+    }
+
+    private BitSet computeSuperinterfaces(JClass iface) {
+        BitSet result = new BitSet();
+        Deque<JClass> workList = new ArrayDeque<>();
+        workList.add(iface);
+        while (!workList.isEmpty()) {
+            Integer i = interfaceIds.get(workList.poll());
+            if (i != null && !result.get(i)) {
+                result.set(i);
+                workList.addAll(interfaces[i].getInterfaces());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if {@code subtype} is {@code supertype} or its
+     * subclass, subinterface or implementor (directly or indirectly).
+     */
+    boolean isSubtype(JClass supertype, JClass subtype) {
+        if (supertype.isInterface()) {
+            Integer i = interfaceIds.get(supertype);
+            if (i == null) {
+                return false;
+            }
+            if (subtype.isInterface()) {
+                Integer s = interfaceIds.get(subtype);
+                return s != null && subinterfaces[i].get(s);
+            } else {
+                Integer s = classIds.get(subtype);
+                return s != null && implementors[i].get(s);
+            }
+        } else {
+            if (subtype.isInterface()) {
+                return false;
+            }
+            Integer c = classIds.get(supertype);
+            Integer s = classIds.get(subtype);
+            return c != null && s != null && c <= s && s < subtreeEnd[c];
+        }
+    }
+
+    /**
+     * Adds the subtypes of given class or interface (including itself)
+     * that satisfy given predicate to given collection.
+     */
+    void collectSubtypes(JClass jclass, Predicate<JClass> filter,
+                         Collection<JClass> result) {
+        if (jclass.isInterface()) {
+            Integer i = interfaceIds.get(jclass);
+            if (i == null) {
+                return;
+            }
+            BitSet subs = subinterfaces[i];
+            for (int s = subs.nextSetBit(0); s >= 0; s = subs.nextSetBit(s + 1)) {
+                addIf(interfaces[s], filter, result);
+            }
+            BitSet impls = implementors[i];
+            for (int c = impls.nextSetBit(0); c >= 0; c = impls.nextSetBit(c + 1)) {
+                addIf(classes[c], filter, result);
+            }
+        } else {
+            Integer c = classIds.get(jclass);
+            if (c == null) {
+                return;
+            }
+            for (int s = c; s < subtreeEnd[c]; ++s) {
+                addIf(classes[s], filter, result);
+            }
+        }
+    }
+
+    private static void addIf(JClass jclass, Predicate<JClass> filter,
+                              Collection<JClass> result) {
+        if (filter.test(jclass)) {
+            result.add(jclass);
+        }
+    }
+}
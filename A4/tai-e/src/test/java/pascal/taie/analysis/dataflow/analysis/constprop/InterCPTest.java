@@ -57,4 +57,14 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testMultiIntArgsSummary() {
+        // the two calls of foo() get their own return values, and
+        // the parameters of the callees are NAC
+        Tests.test("MultiIntArgs", "src/test/resources/dataflow/constprop/inter-summary",
+                InterConstantPropagation.ID,
+                "edge-refine:false;alias-aware:false;summary:true",
+                "-a", "cg=algorithm:cha");
+    }
 }
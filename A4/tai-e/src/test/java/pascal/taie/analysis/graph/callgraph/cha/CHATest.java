@@ -22,8 +22,16 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import org.junit.Assert;
 import org.junit.Test;
 import pascal.taie.analysis.Tests;
+import pascal.taie.config.Configs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 
 public class CHATest {
     
@@ -50,4 +58,58 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testInterfaceParallel() {
+        Tests.test("Interface", "src/test/resources/cha/", "cg",
+                "algorithm:cha;parallel:true");
+    }
+
+    @Test
+    public void testVirtualCallCompact() {
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;compact:true");
+    }
+
+    @Test
+    public void testStaticCallRTA() {
+        Tests.test("StaticCall", "src/test/resources/cha/", "cg", "algorithm:rta");
+    }
+
+    @Test
+    public void testAbstractMethodRTA() {
+        // the only subclass is instantiated, thus RTA agrees with CHA
+        Tests.test("AbstractMethod", "src/test/resources/cha/", "cg", "algorithm:rta");
+    }
+
+    @Test
+    public void testLateInstantiationRTA() {
+        // Dog is instantiated after a.speak() is reached, and Bird is
+        // never instantiated
+        Tests.test("LateInstantiation", "src/test/resources/rta/", "cg", "algorithm:rta");
+    }
+
+    @Test
+    public void testAbstractMethodCached() throws IOException {
+        File cacheDir = new File(Configs.getOutputDir(), "cg-cache");
+        File[] oldFiles = cacheDir.listFiles();
+        if (oldFiles != null) {
+            for (File file : oldFiles) {
+                Files.delete(file.toPath());
+            }
+        }
+        // the first run builds the call graph and stores it
+        Tests.test("AbstractMethod", "src/test/resources/cha/", "cg",
+                "algorithm:cha;cache:true");
+        File[] files = cacheDir.listFiles();
+        Assert.assertNotNull(files);
+        Assert.assertEquals(1, files.length);
+        Path cacheFile = files[0].toPath();
+        FileTime stamp = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(cacheFile, stamp);
+        // the second run loads the call graph, thus does not store it again
+        Tests.test("AbstractMethod", "src/test/resources/cha/", "cg",
+                "algorithm:cha;cache:true");
+        Assert.assertEquals(stamp, Files.getLastModifiedTime(cacheFile));
+    }
 }
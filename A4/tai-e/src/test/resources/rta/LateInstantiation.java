@@ -0,0 +1,35 @@
+public class LateInstantiation {
+
+    public static void main(String[] args) {
+        Animal a = new Cat();
+        speak(a);
+        create();
+    }
+
+    static void speak(Animal a) {
+        a.speak();
+    }
+
+    static void create() {
+        new Dog();
+    }
+}
+
+abstract class Animal {
+    abstract void speak();
+}
+
+class Cat extends Animal {
+    void speak() {
+    }
+}
+
+class Dog extends Animal {
+    void speak() {
+    }
+}
+
+class Bird extends Animal {
+    void speak() {
+    }
+}
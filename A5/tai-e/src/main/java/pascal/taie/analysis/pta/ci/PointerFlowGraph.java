@@ -28,7 +28,6 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.TwoKeyMap;
 
 import java.util.Collections;
 import java.util.Map;
@@ -36,33 +35,37 @@ import java.util.Set;
 
 /**
  * Represents pointer flow graph in pointer analysis.
+ * <p>
+ * The pointers are kept in concurrent maps, so that they can be obtained
+ * by multiple threads when the solver processes deltas in parallel.
+ * The edges are only added by one thread.
  */
 class PointerFlowGraph {
 
     /**
      * Set of all pointer in this PFG.
      */
-    private final Set<Pointer> pointers = Sets.newSet();
+    private final Set<Pointer> pointers = Sets.newConcurrentSet();
 
     /**
      * Map from Variable to Var node.
      */
-    private final Map<Var, VarPtr> varPtrs = Maps.newMap();
+    private final Map<Var, VarPtr> varPtrs = Maps.newConcurrentMap();
 
     /**
      * Map from JField to StaticField node.
      */
-    private final Map<JField, StaticField> staticFields = Maps.newMap();
+    private final Map<JField, StaticField> staticFields = Maps.newConcurrentMap();
 
     /**
      * Map from (Obj, Field) to InstanceField node.
      */
-    private final TwoKeyMap<Obj, JField, InstanceField> instanceFields = Maps.newTwoKeyMap();
+    private final Map<Obj, Map<JField, InstanceField>> instanceFields = Maps.newConcurrentMap();
 
     /**
      * Map from Obj (array) to ArrayIndex node.
      */
-    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newMap();
+    private final Map<Obj, ArrayIndex> arrayIndexes = Maps.newConcurrentMap();
 
     /**
      * Map from a pointer (node) to its successors in PFG.
@@ -103,11 +106,12 @@ class PointerFlowGraph {
      * and instance field.
      */
     InstanceField getInstanceField(Obj base, JField field) {
-        return instanceFields.computeIfAbsent(base, field, (b, f) -> {
-                InstanceField instanceField = new InstanceField(b, f);
-                pointers.add(instanceField);
-                return instanceField;
-            });
+        return instanceFields.computeIfAbsent(base, __ -> Maps.newConcurrentMap())
+                .computeIfAbsent(field, f -> {
+                    InstanceField instanceField = new InstanceField(base, f);
+                    pointers.add(instanceField);
+                    return instanceField;
+                });
     }
 
     /**
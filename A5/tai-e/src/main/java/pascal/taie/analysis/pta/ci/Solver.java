@@ -41,10 +41,14 @@ import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 class Solver {
 
@@ -52,6 +56,11 @@ class Solver {
 
     private final HeapModel heapModel;
 
+    /**
+     * Whether update the points-to sets of different pointers in parallel.
+     */
+    private final boolean parallel;
+
     private DefaultCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -65,8 +74,9 @@ class Solver {
     private Set<JMethod> processedMethods = new HashSet<>();
     private Collection<Stmt> ReachableMethods = new HashSet<>();
 
-    Solver(HeapModel heapModel) {
+    Solver(HeapModel heapModel, boolean parallel) {
         this.heapModel = heapModel;
+        this.parallel = parallel;
     }
 
     /**
@@ -74,7 +84,11 @@ class Solver {
      */
     void solve() {
         initialize();
-        analyze();
+        if (parallel) {
+            analyzeInParallel();
+        } else {
+            analyze();
+        }
     }
 
     /**
@@ -188,6 +202,13 @@ class Solver {
         if (pointerFlowGraph.addEdge(source, target)) {
             PointsToSet sourcePts = source.getPointsToSet();
             if (!sourcePts.isEmpty()) {
+                if (parallel) {
+                    // the points-to set of source may be updated while
+                    // this entry is read by another thread, so copy it
+                    PointsToSet copy = new PointsToSet();
+                    sourcePts.forEach(copy::addObject);
+                    sourcePts = copy;
+                }
                 workList.addEntry(target, sourcePts);
             }
         }
@@ -214,19 +235,95 @@ class Solver {
                 Var var = varPtr.getVar();
                 for (Obj obj : delta)
                 {
-                    processVarPointer(var, obj);
+                    processVarPointer(var, obj, this::addPFGEdge);
+                    processCall(var, obj);
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes work-list entries round by round until the work-list
+     * is empty. In each round, all entries are taken from the work-list
+     * and grouped by their pointers. For different pointers, the points-to
+     * sets are updated and the deltas are processed concurrently on the
+     * common fork-join pool, i.e., the field and array accesses on the new
+     * objects are resolved to pointers. The actions that change the PFG,
+     * call graph or work-list are deferred and run by the current thread
+     * in the order of the pointers, so these structures need no
+     * synchronization, and the result is the same fixpoint as the one
+     * of {@link #analyze()}.
+     */
+    private void analyzeInParallel() {
+        int rounds = 0;
+        while (!workList.isEmpty()) {
+            ++rounds;
+            Map<Pointer, List<PointsToSet>> entries = new LinkedHashMap<>();
+            while (!workList.isEmpty()) {
+                WorkList.Entry entry = workList.pollEntry();
+                entries.computeIfAbsent(entry.pointer(), __ -> new ArrayList<>())
+                        .add(entry.pointsToSet());
+            }
+            List<Pointer> pointers = new ArrayList<>(entries.keySet());
+            List<List<Runnable>> actions = pointers.parallelStream()
+                    .map(pointer -> processInParallel(pointer, entries.get(pointer)))
+                    .toList();
+            actions.forEach(list -> list.forEach(Runnable::run));
+        }
+        logger.info("Parallel pointer analysis finished in {} rounds", rounds);
+    }
+
+    /**
+     * Propagates given points-to sets to pt(pointer) and processes the delta.
+     * This method is called by multiple threads, each with a different
+     * pointer, so it only updates pt(pointer) and the concurrent maps
+     * of the PFG.
+     *
+     * @return the deferred actions that change the PFG, call graph or
+     * work-list, in the order in which {@link #analyze()} performs them.
+     */
+    private List<Runnable> processInParallel(Pointer pointer, List<PointsToSet> sets) {
+        PointsToSet pts = pointer.getPointsToSet();
+        PointsToSet delta = new PointsToSet();
+        for (PointsToSet set : sets) {
+            for (Obj obj : set) {
+                if (pts.addObject(obj)) {
+                    delta.addObject(obj);
                 }
             }
         }
+        List<Runnable> actions = new ArrayList<>();
+        if (!delta.isEmpty()) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+                actions.add(() -> workList.addEntry(succ, delta));
+            }
+            if (pointer instanceof VarPtr varPtr) {
+                Var var = varPtr.getVar();
+                for (Obj obj : delta) {
+                    processVarPointer(var, obj, (source, target) ->
+                            actions.add(() -> addPFGEdge(source, target)));
+                    actions.add(() -> processCall(var, obj));
+                }
+            }
+        }
+        return actions;
     }
-      private void processVarPointer(Var var, Obj obj)
+
+    /**
+     * Processes the instance field and array accesses on given variable
+     * when it points to a new object.
+     *
+     * @param edgeConsumer consumer of the new PFG edges.
+     */
+      private void processVarPointer(Var var, Obj obj,
+                                     BiConsumer<Pointer, Pointer> edgeConsumer)
       {
         for (StoreField storeField : var.getStoreFields()) {
             if (!storeField.isStatic()) {
                 JField field = storeField.getFieldRef().resolve();
                 InstanceField targetPtr = pointerFlowGraph.getInstanceField(obj, field);
                 VarPtr sourcePtr = pointerFlowGraph.getVarPtr(storeField.getRValue());
-                addPFGEdge(sourcePtr, targetPtr);
+                edgeConsumer.accept(sourcePtr, targetPtr);
             }
         }
 
@@ -237,7 +334,7 @@ class Solver {
                 JField field = loadField.getFieldRef().resolve();
                 InstanceField sourcePtr = pointerFlowGraph.getInstanceField(obj, field);
                 VarPtr targetPtr = pointerFlowGraph.getVarPtr(loadField.getLValue());
-                addPFGEdge(sourcePtr, targetPtr);
+                edgeConsumer.accept(sourcePtr, targetPtr);
             }
         }
 
@@ -245,17 +342,16 @@ class Solver {
         {
             VarPtr sourcePtr = pointerFlowGraph.getVarPtr(storeArray.getRValue());
             ArrayIndex targetPtr = pointerFlowGraph.getArrayIndex(obj);
-            addPFGEdge(sourcePtr, targetPtr);
+            edgeConsumer.accept(sourcePtr, targetPtr);
         }
 
         for (LoadArray loadArray : var.getLoadArrays())
         {
             ArrayIndex sourcePtr = pointerFlowGraph.getArrayIndex(obj);
             VarPtr targetPtr = pointerFlowGraph.getVarPtr(loadArray.getLValue());
-            addPFGEdge(sourcePtr, targetPtr);
+            edgeConsumer.accept(sourcePtr, targetPtr);
         }
 
-        processCall(var, obj);
     }
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
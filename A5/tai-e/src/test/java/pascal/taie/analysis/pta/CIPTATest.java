@@ -59,11 +59,21 @@ public class CIPTATest {
         Tests.testCIPTA(DIR, "Call");
     }
 
+    @Test
+    public void testCallParallel() {
+        Tests.testCIPTA(DIR, "Call", "parallel:true");
+    }
+
     @Test
     public void testInstanceField() {
         Tests.testCIPTA(DIR, "InstanceField");
     }
 
+    @Test
+    public void testInstanceFieldParallel() {
+        Tests.testCIPTA(DIR, "InstanceField", "parallel:true");
+    }
+
     @Test
     public void testStaticField() {
         Tests.testCIPTA(DIR, "StaticField");
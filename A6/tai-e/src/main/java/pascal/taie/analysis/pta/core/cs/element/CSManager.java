@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.core.cs.element;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.JField;
@@ -46,6 +47,24 @@ public interface CSManager {
      */
     CSObj getCSObj(Context heapContext, Obj obj);
 
+    /**
+     * @return the context-sensitive object with given index.
+     * @see CSObj#getIndex()
+     */
+    CSObj getObject(int index);
+
+    /**
+     * @return a new empty points-to set in the representation
+     * used by the pointers of this manager.
+     */
+    PointsToSet makePointsToSet();
+
+    /**
+     * @return a new points-to set in the representation used by
+     * the pointers of this manager, which contains only given object.
+     */
+    PointsToSet makePointsToSet(CSObj obj);
+
     /**
      * @return a context-sensitive call site for given context and call site.
      */
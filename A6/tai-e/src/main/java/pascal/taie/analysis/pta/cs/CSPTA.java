@@ -43,6 +43,12 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    /**
+     * Key of the number of pointers merged into cycle representatives,
+     * which is stored in the result when option "collapse-cycles" is on.
+     */
+    public static final String MERGED_POINTERS = "merged-pointers";
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
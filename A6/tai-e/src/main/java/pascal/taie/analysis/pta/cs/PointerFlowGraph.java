@@ -23,21 +23,60 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
+import pascal.taie.util.graph.Graph;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * The pointers on a cycle of this graph can be merged into one
+ * representative pointer (see {@link #merge(List)}). The edges of
+ * this graph are always kept between representatives, and queries
+ * on merged pointers are answered by their representatives.
+ * <p>
+ * An edge may have a type filter, and only the objects whose types are
+ * subtypes of the filter can be propagated along the edge. Such edges
+ * are excluded from the cycles to merge (see {@link #getUnfilteredGraph()}).
  */
-class PointerFlowGraph {
+class PointerFlowGraph implements Graph<Pointer> {
 
     /**
      * Map from a pointer (node) to its successors in PFG.
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a pointer (node) to its predecessors in PFG.
+     */
+    private final MultiMap<Pointer, Pointer> predecessors = Maps.newMultiMap();
+
+    /**
+     * Map from merged pointers to their representatives.
+     * The pointers absent in this map are representatives of themselves.
+     */
+    private final Map<Pointer, Pointer> reps = Maps.newMap();
+
+    /**
+     * Map from a representative to the other pointers merged into it.
+     */
+    private final MultiMap<Pointer, Pointer> mergedPointers = Maps.newMultiMap();
+
+    /**
+     * Map from edges (source, target) to their type filters.
+     * The edges absent in this map propagate all objects.
+     */
+    private final TwoKeyMap<Pointer, Pointer, Type> filters = Maps.newTwoKeyMap();
+
     /**
      * Adds an edge (source -> target) to this PFG.
      *
@@ -45,13 +84,189 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        return addEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge (source -> target) with given type filter to this PFG.
+     * If the edge already exists, its filter is left unchanged.
+     *
+     * @param filter the type filter of the edge, or null if the edge
+     *               propagates all objects.
+     * @return true if this PFG changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target, Type filter) {
+        return addRepEdge(getRep(source), getRep(target), filter);
+    }
+
+    private boolean addRepEdge(Pointer source, Pointer target, Type filter) {
+        if (source != target && successors.put(source, target)) {
+            predecessors.put(target, source);
+            if (filter != null) {
+                filters.put(source, target, filter);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the type filter of edge (source -> target),
+     * or null if the edge propagates all objects.
+     */
+    Type getFilter(Pointer source, Pointer target) {
+        return filters.get(getRep(source), target);
+    }
+
+    /**
+     * @return a view of this PFG that only contains the edges without
+     * type filters. The pointers on a cycle of this view always point to
+     * the same objects, so they can be merged. A cycle passing a filtered
+     * edge must not be merged, as the merged pointers would share the
+     * objects that the filter is meant to block.
+     */
+    Graph<Pointer> getUnfilteredGraph() {
+        return new Graph<>() {
+
+            @Override
+            public boolean hasNode(Pointer pointer) {
+                return PointerFlowGraph.this.hasNode(pointer);
+            }
+
+            @Override
+            public boolean hasEdge(Pointer source, Pointer target) {
+                return PointerFlowGraph.this.hasEdge(source, target) &&
+                        !filters.containsKey(source, target);
+            }
+
+            @Override
+            public Set<Pointer> getPredsOf(Pointer pointer) {
+                Pointer rep = getRep(pointer);
+                Set<Pointer> preds = Sets.newSet();
+                for (Pointer pred : predecessors.get(rep)) {
+                    if (!filters.containsKey(pred, rep)) {
+                        preds.add(pred);
+                    }
+                }
+                return preds;
+            }
+
+            @Override
+            public Set<Pointer> getSuccsOf(Pointer pointer) {
+                Pointer rep = getRep(pointer);
+                Set<Pointer> succs = Sets.newSet();
+                for (Pointer succ : successors.get(rep)) {
+                    if (!filters.containsKey(rep, succ)) {
+                        succs.add(succ);
+                    }
+                }
+                return succs;
+            }
+
+            @Override
+            public Set<Pointer> getNodes() {
+                return PointerFlowGraph.this.getNodes();
+            }
+        };
+    }
+
+    /**
+     * Adds a redirected edge of merged pointers. The filter of a redirected
+     * edge is kept, as the objects flowing along the original edge are all
+     * subtypes of the filter. If the edge already exists with a different
+     * filter, the filter is dropped, so that both flows are preserved.
+     */
+    private void redirectEdge(Pointer source, Pointer target, Type filter) {
+        if (!addRepEdge(source, target, filter) && source != target &&
+                !Objects.equals(filters.get(source, target), filter)) {
+            filters.remove(source, target);
+        }
+    }
+
+    /**
+     * @return the representative of given pointer.
+     */
+    Pointer getRep(Pointer pointer) {
+        return reps.getOrDefault(pointer, pointer);
+    }
+
+    /**
+     * @return the pointers merged into given representative,
+     * excluding the representative itself.
+     */
+    Set<Pointer> getMergedPointersOf(Pointer rep) {
+        return mergedPointers.get(rep);
+    }
+
+    /**
+     * Merges given representatives, which should form a cycle of unfiltered
+     * edges in this PFG, into the first one, and redirects their edges to it.
+     * Updating the points-to sets of the merged pointers is left
+     * to the caller.
+     *
+     * @return the representative of the merged pointers.
+     */
+    Pointer merge(List<Pointer> pointers) {
+        Pointer rep = pointers.get(0);
+        List<Pointer> others = pointers.subList(1, pointers.size());
+        for (Pointer pointer : others) {
+            reps.put(pointer, rep);
+            mergedPointers.put(rep, pointer);
+            for (Pointer merged : new ArrayList<>(mergedPointers.get(pointer))) {
+                reps.put(merged, rep);
+                mergedPointers.put(rep, merged);
+            }
+            mergedPointers.removeAll(pointer);
+        }
+        for (Pointer pointer : others) {
+            for (Pointer succ : new ArrayList<>(successors.get(pointer))) {
+                predecessors.remove(succ, pointer);
+                redirectEdge(rep, getRep(succ), filters.get(pointer, succ));
+            }
+            successors.removeAll(pointer);
+            filters.removeAll(pointer);
+            for (Pointer pred : new ArrayList<>(predecessors.get(pointer))) {
+                successors.remove(pred, pointer);
+                redirectEdge(getRep(pred), rep, filters.remove(pred, pointer));
+            }
+            predecessors.removeAll(pointer);
+        }
+        return rep;
+    }
+
+    @Override
+    public boolean hasNode(Pointer pointer) {
+        return successors.containsKey(pointer) ||
+                predecessors.containsKey(pointer);
+    }
+
+    @Override
+    public boolean hasEdge(Pointer source, Pointer target) {
+        return successors.contains(source, target);
+    }
+
+    @Override
+    public Set<Pointer> getPredsOf(Pointer pointer) {
+        return predecessors.get(getRep(pointer));
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
-    Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+    @Override
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
+        return successors.get(getRep(pointer));
+    }
+
+    /**
+     * @return the representatives that have edges in this PFG.
+     */
+    @Override
+    public Set<Pointer> getNodes() {
+        Set<Pointer> nodes = Sets.newSet();
+        nodes.addAll(successors.keySet());
+        nodes.addAll(predecessors.keySet());
+        return nodes;
     }
 }
@@ -36,21 +36,33 @@ import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
-import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.StaticFieldAccess;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.*;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ReferenceType;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.SCC;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 class Solver
 {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Default number of PFG edges at which the first cycle collapse happens.
+     */
+    private static final int DEFAULT_COLLAPSE_THRESHOLD = 64;
+
     private final AnalysisOptions options;
 
     private final HeapModel heapModel;
@@ -67,6 +79,45 @@ class Solver
 
     private PointerAnalysisResult result;
 
+    /**
+     * Whether merge the pointers on PFG cycles.
+     */
+    private boolean collapseCycles;
+
+    /**
+     * Number of the edges added to the PFG.
+     */
+    private int nPFGEdges;
+
+    /**
+     * Number of PFG edges at which the next cycle collapse happens.
+     * It starts from option "collapse-threshold" and doubles after each
+     * collapse, so that the total cost of finding cycles stays
+     * proportional to the size of the PFG.
+     */
+    private int nextCollapse;
+
+    private int nMergedPointers;
+
+    /**
+     * Whether update the points-to sets of different pointers in parallel.
+     */
+    private boolean parallel;
+
+    /**
+     * Whether filter the objects propagated to variables and array
+     * elements by their types.
+     */
+    private boolean typeFilter;
+
+    private TypeSystem typeSystem;
+
+    /**
+     * Cache of the results of subtype tests used by type filters.
+     * It may be updated by multiple threads in parallel mode.
+     */
+    private Map<Type, Map<Type, Boolean>> subtypes;
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector)
     {
@@ -78,15 +129,35 @@ class Solver
     void solve()
     {
         initialize();
-        analyze();
+        if (parallel)
+        {
+            analyzeInParallel();
+        }
+        else
+        {
+            analyze();
+        }
     }
 
     private void initialize()
     {
-        csManager = new MapBasedCSManager();
+        csManager = new MapBasedCSManager(
+                "bitset".equals(options.getString("pts")));
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
+        nPFGEdges = 0;
+        Object threshold = options.get("collapse-threshold");
+        nextCollapse = threshold != null
+                ? options.getInt("collapse-threshold")
+                : DEFAULT_COLLAPSE_THRESHOLD;
+        nMergedPointers = 0;
+        parallel = options.getBooleanOrDefault("parallel", false);
+        typeFilter = options.getBooleanOrDefault("type-filter", false);
+        typeSystem = World.get().getTypeSystem();
+        subtypes = Maps.newConcurrentMap();
+        workList = new WorkList(csManager,
+                options.getBooleanOrDefault("merge-delta", false));
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -114,10 +185,86 @@ class Solver
     private void addPFGEdge(Pointer source, Pointer target)
     {
         // TODO - finish me
-        if (pointerFlowGraph.getSuccsOf(source).contains(target))
+        Type filter = typeFilter ? getFilter(source, target) : null;
+        if (!pointerFlowGraph.addEdge(source, target, filter))
             return;
-        pointerFlowGraph.addEdge(source, target);
-        workList.addEntry(target, source.getPointsToSet());
+        ++nPFGEdges;
+        PointsToSet sourcePts = source.getPointsToSet();
+        if (filter != null)
+        {
+            sourcePts = filter(sourcePts, filter);
+        }
+        if (!sourcePts.isEmpty())
+        {
+            if (parallel && filter == null)
+            {
+                // the points-to set of source may be updated while
+                // this entry is read by another thread, so copy it
+                PointsToSet copy = csManager.makePointsToSet();
+                copy.addAll(sourcePts);
+                sourcePts = copy;
+            }
+            workList.addEntry(target, sourcePts);
+        }
+    }
+
+    /**
+     * @return the type filter for edge "source -> target", i.e., the type
+     * of target variable or array element if the objects of source may not
+     * be its subtypes, otherwise null. As arrays are covariant, an array
+     * store may put objects of any type into an array index, but the objects
+     * that are not subtypes of the element type are rejected at runtime
+     * by an ArrayStoreException.
+     */
+    private Type getFilter(Pointer source, Pointer target)
+    {
+        if ((target instanceof CSVar || target instanceof ArrayIndex) &&
+                target.getType() instanceof ReferenceType type &&
+                !isSubtype(type, source.getType()))
+        {
+            return type;
+        }
+        return null;
+    }
+
+    /**
+     * @return the objects in pointsToSet whose types are subtypes of given type.
+     */
+    private PointsToSet filter(PointsToSet pointsToSet, Type type)
+    {
+        PointsToSet result = csManager.makePointsToSet();
+        for (CSObj obj : pointsToSet)
+        {
+            if (isSubtype(type, obj.getObject().getType()))
+            {
+                result.addObject(obj);
+            }
+        }
+        return result;
+    }
+
+    private boolean isSubtype(Type supertype, Type subtype)
+    {
+        return subtypes.computeIfAbsent(supertype, __ -> Maps.newConcurrentMap())
+                .computeIfAbsent(subtype, t -> typeSystem.isSubtype(supertype, t));
+    }
+
+    /**
+     * Passes delta of given pointer, filtered for each PFG successor,
+     * to entryConsumer, which adds it to the work list.
+     */
+    private void propagateToSuccs(Pointer pointer, PointsToSet delta,
+                                  BiConsumer<Pointer, PointsToSet> entryConsumer)
+    {
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer))
+        {
+            Type filter = pointerFlowGraph.getFilter(pointer, succ);
+            PointsToSet pts = filter == null ? delta : filter(delta, filter);
+            if (!pts.isEmpty())
+            {
+                entryConsumer.accept(succ, pts);
+            }
+        }
     }
 
     /**
@@ -128,31 +275,173 @@ class Solver
         // TODO - finish me
         while (!workList.isEmpty())
         {
+            if (collapseCycles && nPFGEdges >= nextCollapse)
+            {
+                collapseCycles();
+                nextCollapse = 2 * nPFGEdges;
+            }
             WorkList.Entry entry = workList.pollEntry();
             PointsToSet delta = propagate(entry.pointer(), entry.pointsToSet());
             if (delta.isEmpty())
                 continue;
 
-            if (entry.pointer() instanceof CSVar csVar)
+            processDelta(entry.pointer(), delta, this::addPFGEdge, this::processCall);
+        }
+        if (collapseCycles)
+        {
+            logger.info("{} pointers merged into cycle representatives", nMergedPointers);
+        }
+    }
+
+    /**
+     * Processes work-list entries round by round until the work-list
+     * is empty. In each round, all entries are taken from the work-list
+     * and grouped by the representatives of their pointers. For different
+     * representatives, the points-to sets are updated and the deltas are
+     * processed concurrently on the common fork-join pool, i.e., the deltas
+     * are filtered for the PFG successors, and the field and array accesses
+     * on the new objects are resolved to pointers. The actions that change
+     * the PFG, call graph or work-list are deferred and run by the current
+     * thread in the order of the representatives, so these structures need
+     * no synchronization, and the result is the same fixpoint as the one
+     * of {@link #analyze()}.
+     */
+    private void analyzeInParallel()
+    {
+        int rounds = 0;
+        while (!workList.isEmpty())
+        {
+            ++rounds;
+            if (collapseCycles && nPFGEdges >= nextCollapse)
             {
-                delta.forEach(obj ->
-                {
-                    Var varriable = csVar.getVar();
-                    Context context = csVar.getContext();
+                collapseCycles();
+                nextCollapse = 2 * nPFGEdges;
+            }
+            Map<Pointer, List<PointsToSet>> entries = new LinkedHashMap<>();
+            while (!workList.isEmpty())
+            {
+                WorkList.Entry entry = workList.pollEntry();
+                entries.computeIfAbsent(pointerFlowGraph.getRep(entry.pointer()),
+                        __ -> new ArrayList<>()).add(entry.pointsToSet());
+            }
+            List<Pointer> pointers = new ArrayList<>(entries.keySet());
+            List<List<Runnable>> actions = pointers.parallelStream()
+                    .map(pointer -> processInParallel(pointer, entries.get(pointer)))
+                    .toList();
+            actions.forEach(list -> list.forEach(Runnable::run));
+        }
+        logger.info("Parallel pointer analysis finished in {} rounds", rounds);
+        if (collapseCycles)
+        {
+            logger.info("{} pointers merged into cycle representatives", nMergedPointers);
+        }
+    }
+
+    /**
+     * Propagates given points-to sets to pt(rep) and processes the delta.
+     * This method is called by multiple threads, each with a different
+     * representative, so it only updates pt(rep) and the concurrent maps
+     * of the CS manager and subtype cache.
+     *
+     * @return the deferred actions that change the PFG, call graph or
+     * work-list, in the order in which {@link #analyze()} performs them.
+     */
+    private List<Runnable> processInParallel(Pointer rep, List<PointsToSet> sets)
+    {
+        PointsToSet pts = rep.getPointsToSet();
+        PointsToSet delta = csManager.makePointsToSet();
+        for (PointsToSet set : sets)
+        {
+            delta.addAll(pts.addAllDiff(set));
+        }
+        List<Runnable> actions = new ArrayList<>();
+        if (!delta.isEmpty())
+        {
+            propagateToSuccs(rep, delta, (succ, succPts) ->
+                    actions.add(() -> workList.addEntry(succ, succPts)));
+            processDelta(rep, delta,
+                    (source, target) -> actions.add(() -> addPFGEdge(source, target)),
+                    (recv, recvObj) -> actions.add(() -> processCall(recv, recvObj)));
+        }
+        return actions;
+    }
 
-                    varriable.getStoreFields().forEach(storeField ->
-                            addPFGEdge(csManager.getCSVar(context, storeField.getRValue()),
-                                    csManager.getInstanceField(obj, storeField.getFieldAccess().getFieldRef().resolve())));
+    /**
+     * Processes the objects newly pointed to by given pointer and
+     * the pointers merged with it.
+     *
+     * @param edgeConsumer consumer of the new PFG edges.
+     * @param callConsumer consumer of the receiver variables and the new
+     *                     objects for the calls on them.
+     */
+    private void processDelta(Pointer pointer, PointsToSet delta,
+                              BiConsumer<Pointer, Pointer> edgeConsumer,
+                              BiConsumer<CSVar, CSObj> callConsumer)
+    {
+        // the merged pointers share the points-to set of
+        // their representative, so they all receive the delta
+        Pointer rep = pointerFlowGraph.getRep(pointer);
+        processNewObjects(rep, delta, edgeConsumer, callConsumer);
+        for (Pointer merged : pointerFlowGraph.getMergedPointersOf(rep))
+        {
+            processNewObjects(merged, delta, edgeConsumer, callConsumer);
+        }
+    }
+
+    /**
+     * Processes the objects newly pointed to by given pointer.
+     */
+    private void processNewObjects(Pointer pointer, PointsToSet delta,
+                                   BiConsumer<Pointer, Pointer> edgeConsumer,
+                                   BiConsumer<CSVar, CSObj> callConsumer)
+    {
+        if (pointer instanceof CSVar csVar)
+        {
+            delta.forEach(obj ->
+            {
+                Var varriable = csVar.getVar();
+                Context context = csVar.getContext();
+
+                varriable.getStoreFields().forEach(storeField ->
+                        edgeConsumer.accept(csManager.getCSVar(context, storeField.getRValue()),
+                                csManager.getInstanceField(obj, storeField.getFieldAccess().getFieldRef().resolve())));
 
-                    varriable.getLoadFields().forEach(loadField -> addPFGEdge(csManager.getInstanceField(obj, loadField.getFieldAccess().getFieldRef().resolve()),
-                            csManager.getCSVar(context, loadField.getLValue())));
+                varriable.getLoadFields().forEach(loadField -> edgeConsumer.accept(csManager.getInstanceField(obj, loadField.getFieldAccess().getFieldRef().resolve()),
+                        csManager.getCSVar(context, loadField.getLValue())));
 
-                    varriable.getStoreArrays().forEach(storeArray -> addPFGEdge(csManager.getCSVar(context, storeArray.getRValue()), csManager.getArrayIndex(obj)));
+                varriable.getStoreArrays().forEach(storeArray -> edgeConsumer.accept(csManager.getCSVar(context, storeArray.getRValue()), csManager.getArrayIndex(obj)));
 
-                    varriable.getLoadArrays().forEach(loadArray -> addPFGEdge(csManager.getArrayIndex(obj), csManager.getCSVar(context, loadArray.getLValue())));
+                varriable.getLoadArrays().forEach(loadArray -> edgeConsumer.accept(csManager.getArrayIndex(obj), csManager.getCSVar(context, loadArray.getLValue())));
 
-                    processCall(csVar, obj);
-                });
+                callConsumer.accept(csVar, obj);
+            });
+        }
+    }
+
+    /**
+     * Finds the cycles of unfiltered edges in the PFG and merges the pointers
+     * on each cycle into a representative, so that they share one points-to set.
+     * The union of their previous points-to sets is propagated again from
+     * the representative, as each pointer may miss some of the objects.
+     */
+    private void collapseCycles()
+    {
+        for (List<Pointer> scc : new SCC<>(pointerFlowGraph.getUnfilteredGraph())
+                .getTrueComponents())
+        {
+            if (scc.size() < 2)
+                continue;
+            PointsToSet union = csManager.makePointsToSet();
+            scc.forEach(pointer -> union.addAll(pointer.getPointsToSet()));
+            Pointer rep = pointerFlowGraph.merge(scc);
+            PointsToSet shared = csManager.makePointsToSet();
+            rep.setPointsToSet(shared);
+            pointerFlowGraph.getMergedPointersOf(rep)
+                    .forEach(pointer -> pointer.setPointsToSet(shared));
+            nMergedPointers += scc.size() - 1;
+            if (!union.isEmpty())
+            {
+                workList.addEntry(rep, union);
             }
         }
     }
@@ -164,21 +453,11 @@ class Solver
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet)
     {
         // TODO - finish me
-        PointsToSet delta = PointsToSetFactory.make();
-        for (CSObj obj : pointsToSet)
-        {
-            if (pointer.getPointsToSet().contains(obj))
-                continue;
-            pointer.getPointsToSet().addObject(obj);
-            delta.addObject(obj);
-        }
+        PointsToSet delta = pointer.getPointsToSet().addAllDiff(pointsToSet);
 
         if (!delta.isEmpty())
         {
-            for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer))
-            {
-                workList.addEntry(succ, delta);
-            }
+            propagateToSuccs(pointer, delta, workList::addEntry);
         }
         return delta;
     }
@@ -203,9 +482,8 @@ class Solver
             Context calleeCtx = contextSelector.selectContext(invokeElement, recvObj, resolvedMethod);
             CSMethod calleeMethod = csManager.getCSMethod(calleeCtx, resolvedMethod);
 
-            PointsToSet recvPointsTo = PointsToSetFactory.make(recvObj);
             Pointer calleeThis = csManager.getCSVar(calleeCtx, resolvedMethod.getIR().getThis());
-            workList.addEntry(calleeThis, recvPointsTo);
+            workList.addEntry(calleeThis, recvObj);
 
             if (callGraph.getCalleesOf(invokeElement).contains(calleeMethod)) continue;
             addReachable(calleeMethod);
@@ -261,6 +539,10 @@ class Solver
         if (result == null)
         {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
+            if (collapseCycles)
+            {
+                result.storeResult(CSPTA.MERGED_POINTERS, nMergedPointers);
+            }
         }
         return result;
     }
@@ -287,7 +569,7 @@ class Solver
         {
             Obj obj = heapModel.getObj(stmt);
             Context heapContext = contextSelector.selectHeapContext(csMethod, obj);
-            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()), PointsToSetFactory.make(csManager.getCSObj(heapContext, obj)));
+            workList.addEntry(csManager.getCSVar(context, stmt.getLValue()), csManager.getCSObj(heapContext, obj));
             return null;
         }
 
@@ -22,24 +22,111 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * If pending deltas are merged, each pointer appears in this work list
+ * at most once, and the points-to sets added for a pointer which is
+ * already in the work list are merged into its pending delta in place.
  */
 class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    /**
+     * Makes the points-to sets created by this work list.
+     */
+    private final CSManager csManager;
+
+    /**
+     * Whether merge the points-to sets added for the same pointer.
+     */
+    private final boolean mergeDelta;
+
+    /**
+     * Pointers in this work list, in the order of their first additions.
+     * Only used when merging pending deltas.
+     */
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Map from the pointers in this work list to their pending deltas.
+     * Only used when merging pending deltas.
+     */
+    private final Map<Pointer, PointsToSet> pendingDeltas = Maps.newMap();
+
+    /**
+     * Pending deltas created by this work list. Other pending deltas
+     * are shared with the callers of {@link #addEntry}, thus they are
+     * copied before the first merge.
+     */
+    private final Set<Pointer> ownedDeltas = Sets.newSet();
+
+    WorkList(CSManager csManager) {
+        this(csManager, false);
+    }
+
+    WorkList(CSManager csManager, boolean mergeDelta) {
+        this.csManager = csManager;
+        this.mergeDelta = mergeDelta;
+    }
+
     /**
      * Adds an entry to the work list.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        if (!mergeDelta) {
+            entries.add(new Entry(pointer, pointsToSet));
+            return;
+        }
+        PointsToSet delta = pendingDeltas.get(pointer);
+        if (delta == null) {
+            pendingDeltas.put(pointer, pointsToSet);
+            pointers.add(pointer);
+        } else {
+            getOwnedDelta(pointer, delta).addAll(pointsToSet);
+        }
+    }
+
+    /**
+     * Adds an entry which consists of a pointer and a single object
+     * to the work list.
+     */
+    void addEntry(Pointer pointer, CSObj obj) {
+        if (!mergeDelta) {
+            entries.add(new Entry(pointer, csManager.makePointsToSet(obj)));
+            return;
+        }
+        PointsToSet delta = pendingDeltas.get(pointer);
+        if (delta == null) {
+            pendingDeltas.put(pointer, csManager.makePointsToSet(obj));
+            ownedDeltas.add(pointer);
+            pointers.add(pointer);
+        } else if (!delta.contains(obj)) {
+            getOwnedDelta(pointer, delta).addObject(obj);
+        }
+    }
+
+    private PointsToSet getOwnedDelta(Pointer pointer, PointsToSet delta) {
+        if (ownedDeltas.add(pointer)) {
+            PointsToSet copy = csManager.makePointsToSet();
+            copy.addAll(delta);
+            pendingDeltas.put(pointer, copy);
+            return copy;
+        }
+        return delta;
     }
 
     /**
@@ -47,14 +134,22 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        if (!mergeDelta) {
+            return entries.poll();
+        }
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        ownedDeltas.remove(pointer);
+        return new Entry(pointer, pendingDeltas.remove(pointer));
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return mergeDelta ? pointers.isEmpty() : entries.isEmpty();
     }
 
     /**
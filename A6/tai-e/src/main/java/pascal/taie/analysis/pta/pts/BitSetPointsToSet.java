@@ -0,0 +1,269 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set represented by a sparse bit set over the indexes of
+ * context-sensitive objects (see {@link CSObj#getIndex()}).
+ * <p>
+ * The bit set only stores the non-zero 64-bit words, together with their
+ * word indexes in ascending order, so that memory is proportional to
+ * the number of words in use, and objects with close indexes (e.g.,
+ * the objects created by the same allocation site under different heap
+ * contexts) share words. {@link #addAll(PointsToSet)} and
+ * {@link #addAllDiff(PointsToSet)} on two such sets work word by word.
+ */
+class BitSetPointsToSet implements PointsToSet {
+
+    private static final int[] EMPTY_KEYS = {};
+
+    private static final long[] EMPTY_WORDS = {};
+
+    private final CSManager csManager;
+
+    /**
+     * Word indexes of the non-zero words, in ascending order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    private long[] words = EMPTY_WORDS;
+
+    /**
+     * Number of the non-zero words.
+     */
+    private int nWords = 0;
+
+    /**
+     * Number of objects in this set.
+     */
+    private int size = 0;
+
+    BitSetPointsToSet(CSManager csManager) {
+        this.csManager = csManager;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        int index = obj.getIndex();
+        long bit = 1L << index;
+        int pos = Arrays.binarySearch(keys, 0, nWords, index >>> 6);
+        if (pos >= 0) {
+            if ((words[pos] & bit) != 0) {
+                return false;
+            }
+            words[pos] |= bit;
+        } else {
+            insertWord(-pos - 1, index >>> 6, bit);
+        }
+        ++size;
+        return true;
+    }
+
+    private void insertWord(int pos, int key, long word) {
+        if (nWords == keys.length) {
+            int capacity = Math.max(4, nWords * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            words = Arrays.copyOf(words, capacity);
+        }
+        System.arraycopy(keys, pos, keys, pos + 1, nWords - pos);
+        System.arraycopy(words, pos, words, pos + 1, nWords - pos);
+        keys[pos] = key;
+        words[pos] = word;
+        ++nWords;
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (!(pts instanceof BitSetPointsToSet other)) {
+            boolean changed = false;
+            for (CSObj obj : pts) {
+                changed |= addObject(obj);
+            }
+            return changed;
+        }
+        // count the words that are absent in this set
+        int absent = 0;
+        for (int i = 0, j = 0; j < other.nWords; ) {
+            if (i < nWords && keys[i] < other.keys[j]) {
+                ++i;
+            } else {
+                if (i >= nWords || keys[i] > other.keys[j]) {
+                    ++absent;
+                } else {
+                    ++i;
+                }
+                ++j;
+            }
+        }
+        int oldSize = size;
+        if (absent == 0) {
+            // merge in place
+            for (int i = 0, j = 0; j < other.nWords; ++i) {
+                if (keys[i] == other.keys[j]) {
+                    long word = words[i] | other.words[j++];
+                    size += Long.bitCount(word) - Long.bitCount(words[i]);
+                    words[i] = word;
+                }
+            }
+        } else {
+            int n = nWords + absent;
+            int[] newKeys = new int[n];
+            long[] newWords = new long[n];
+            int i = 0, j = 0, k = 0;
+            while (i < nWords || j < other.nWords) {
+                if (j >= other.nWords || (i < nWords && keys[i] < other.keys[j])) {
+                    newKeys[k] = keys[i];
+                    newWords[k++] = words[i++];
+                } else if (i >= nWords || keys[i] > other.keys[j]) {
+                    newKeys[k] = other.keys[j];
+                    newWords[k++] = other.words[j];
+                    size += Long.bitCount(other.words[j++]);
+                } else {
+                    long word = words[i] | other.words[j++];
+                    size += Long.bitCount(word) - Long.bitCount(words[i]);
+                    newKeys[k] = keys[i];
+                    newWords[k++] = word;
+                    ++i;
+                }
+            }
+            keys = newKeys;
+            words = newWords;
+            nWords = n;
+        }
+        return size != oldSize;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        if (!(pts instanceof BitSetPointsToSet other)) {
+            return PointsToSet.super.addAllDiff(pts);
+        }
+        BitSetPointsToSet diff = new BitSetPointsToSet(csManager);
+        for (int i = 0, j = 0; j < other.nWords; ++j) {
+            while (i < nWords && keys[i] < other.keys[j]) {
+                ++i;
+            }
+            long word = other.words[j];
+            if (i < nWords && keys[i] == other.keys[j]) {
+                word &= ~words[i];
+            }
+            if (word != 0) {
+                // keys of other set are ascending, so just append
+                diff.insertWord(diff.nWords, other.keys[j], word);
+                diff.size += Long.bitCount(word);
+            }
+        }
+        addAll(diff);
+        return diff;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int index = obj.getIndex();
+        int pos = Arrays.binarySearch(keys, 0, nWords, index >>> 6);
+        return pos >= 0 && (words[pos] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return new ObjIterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj &&
+                        BitSetPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+
+    private class ObjIterator implements Iterator<CSObj> {
+
+        /**
+         * Position of current word.
+         */
+        private int pos = 0;
+
+        /**
+         * Remaining bits of current word.
+         */
+        private long word = nWords > 0 ? words[0] : 0;
+
+        @Override
+        public boolean hasNext() {
+            while (word == 0 && pos + 1 < nWords) {
+                word = words[++pos];
+            }
+            return word != 0;
+        }
+
+        @Override
+        public CSObj next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int bit = Long.numberOfTrailingZeros(word);
+            word &= word - 1;
+            return csManager.getObject((keys[pos] << 6) + bit);
+        }
+    }
+}
@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.pta.pts;
 
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.util.collection.Sets;
 
@@ -39,6 +40,14 @@ public class PointsToSetFactory {
         return new DelegatePointsToSet(setFactory.get());
     }
 
+    /**
+     * Makes an empty points-to set represented by a bit set over
+     * the indexes of the objects managed by given CS manager.
+     */
+    public static PointsToSet makeBitSet(CSManager csManager) {
+        return new BitSetPointsToSet(csManager);
+    }
+
     /**
      * Convenient method for making one-element points-to set.
      */
@@ -23,7 +23,11 @@
 package pascal.taie.analysis.pta;
 
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.pta.cs.CSPTA;
+
+import static org.junit.Assert.assertEquals;
 
 public class CSPTATest {
 
@@ -49,6 +53,22 @@ public class CSPTATest {
         Tests.testCSPTA(DIR, "Call");
     }
 
+    @Test
+    public void testCopyCycle() {
+        Tests.testCSPTA(DIR, "CopyCycle");
+    }
+
+    @Test
+    public void testCopyCycleCollapseCycles() {
+        Tests.testCSPTA(DIR, "CopyCycle",
+                "collapse-cycles:true", "collapse-threshold:1");
+        // f(x, y) and g(p, q) pass their parameters to each other,
+        // so x, q and y, p form two cycles
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        int merged = result.getResult(CSPTA.MERGED_POINTERS);
+        assertEquals(2, merged);
+    }
+
     @Test
     public void testInstanceField() {
         Tests.testCSPTA(DIR, "InstanceField");
@@ -59,6 +79,11 @@ public class CSPTATest {
         Tests.testCSPTA(DIR, "OneCall", "cs:1-call");
     }
 
+    @Test
+    public void testOneCallMergeDelta() {
+        Tests.testCSPTA(DIR, "OneCall", "cs:1-call", "merge-delta:true");
+    }
+
     @Test
     public void testOneObject() {
         Tests.testCSPTA(DIR, "OneObject", "cs:1-obj");
@@ -74,11 +99,21 @@ public class CSPTATest {
         Tests.testCSPTA(DIR, "TwoCall", "cs:2-call");
     }
 
+    @Test
+    public void testTwoCallParallel() {
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "parallel:true");
+    }
+
     @Test
     public void testTwoObject() {
         Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj");
     }
 
+    @Test
+    public void testTwoObjectBitSet() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "pts:bitset");
+    }
+
     @Test
     public void testTwoType() {
         Tests.testCSPTA(DIR, "TwoType", "cs:2-type");
@@ -93,4 +128,15 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testArrayTypeFilter() {
+        // the A object stored into B[] by arrayStore() is filtered out
+        Tests.testCSPTA(DIR, "ArrayTypeFilter", "type-filter:true");
+    }
+
+    @Test
+    public void testArrayTypeFilterParallel() {
+        Tests.testCSPTA(DIR, "ArrayTypeFilter", "type-filter:true", "parallel:true");
+    }
 }
@@ -0,0 +1,22 @@
+public class CopyCycle {
+
+    public static void main(String[] args) {
+        A a = new A();
+        B b = new B();
+        f(a, b);
+    }
+
+    static void f(A x, B y) {
+        g(y, x);
+    }
+
+    static void g(B p, A q) {
+        f(q, p);
+    }
+}
+
+class A {
+}
+
+class B {
+}
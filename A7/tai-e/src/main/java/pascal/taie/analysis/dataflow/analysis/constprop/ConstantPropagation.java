@@ -93,7 +93,6 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        System.err.println("I come to Transfering: ");
         CPFact updated = new CPFact();
         updated.copyFrom(in);
         if(stmt instanceof DefinitionStmt)
@@ -111,7 +110,6 @@ public class ConstantPropagation extends
                 }
             }
         }
-        System.err.println("I leave Transfering: ");
         return  out.copyFrom(updated);
     }
 